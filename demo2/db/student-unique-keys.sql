@@ -0,0 +1,53 @@
+-- Named unique keys on student.username and student.email (uk_student_username, uk_student_email).
+--
+-- Run once against MySQL before deploying a build that relies on them. ddl-auto=update cannot do
+-- this safely: it only logs a failure when existing usernames collide, and it leaves the old
+-- generated unique index on email in place. Safe to run again.
+
+-- 1. Duplicate usernames (compared with the column collation, so case-insensitively): the oldest
+--    account keeps the name, the others get their id appended and have to be renamed by an admin.
+update student s
+join (select min(id) as keep_id, username
+      from student
+      group by username
+      having count(*) > 1) d on s.username = d.username and s.id <> d.keep_id
+set s.username = concat(s.username, '#', s.id);
+
+-- 2. The named constraints, unless ddl-auto already added them.
+set @ddl = if(exists(select 1
+                     from information_schema.table_constraints
+                     where table_schema = database()
+                       and lower(table_name) = 'student'
+                       and constraint_name = 'uk_student_username'),
+              'do 0',
+              'alter table student add constraint uk_student_username unique (username)');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = if(exists(select 1
+                     from information_schema.table_constraints
+                     where table_schema = database()
+                       and lower(table_name) = 'student'
+                       and constraint_name = 'uk_student_email'),
+              'do 0',
+              'alter table student add constraint uk_student_email unique (email)');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+-- 3. The unique index Hibernate generated for email before it had a name, now a duplicate of
+--    uk_student_email.
+set @old_email_index = (select index_name
+                        from information_schema.statistics
+                        where table_schema = database()
+                          and lower(table_name) = 'student'
+                          and column_name = 'email'
+                          and non_unique = 0
+                          and index_name not in ('PRIMARY', 'uk_student_email')
+                        limit 1);
+set @ddl = if(@old_email_index is null, 'do 0',
+              concat('alter table student drop index `', @old_email_index, '`'));
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
@@ -0,0 +1,98 @@
+package org.example.demo2.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON against the binary encodings offered by content negotiation (see
+ * WebConfig), for a single StudentDTO and a 50 element list, both ways.
+ * Payload sizes are printed once per format at setup, e.g.
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="StudentDtoFormat"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentDtoFormatBenchmark {
+
+	private static final TypeReference<List<StudentDTO>> STUDENT_LIST = new TypeReference<>() {
+	};
+
+	@Param({"json", "cbor", "smile"})
+	public String format;
+
+	private ObjectMapper mapper;
+	private StudentDTO dto;
+	private List<StudentDTO> list;
+	private byte[] dtoBytes;
+	private byte[] listBytes;
+
+	@Setup
+	public void setup() {
+		mapper = switch (format) {
+			case "json" -> JsonMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+			case "cbor" -> CBORMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+			case "smile" -> SmileMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+			default -> throw new IllegalArgumentException(format);
+		};
+
+		dto = student(42L);
+		list = new ArrayList<>();
+		for (long id = 1; id <= 50; id++) {
+			list.add(student(id));
+		}
+
+		dtoBytes = mapper.writeValueAsBytes(dto);
+		listBytes = mapper.writeValueAsBytes(list);
+
+		System.out.printf("%n%s payload: single %d bytes, list of %d %d bytes%n",
+				format, dtoBytes.length, list.size(), listBytes.length);
+	}
+
+	// password is write-only, so responses never carry it
+	private static StudentDTO student(long id) {
+		return new StudentDTO(id, "First" + id, "Last" + id, "student" + id + "@gmail.com",
+				"student" + id, id, id, null, "USER");
+	}
+
+	@Benchmark
+	public byte[] serializeStudent() {
+		return mapper.writeValueAsBytes(dto);
+	}
+
+	@Benchmark
+	public StudentDTO deserializeStudent() {
+		return mapper.readValue(dtoBytes, StudentDTO.class);
+	}
+
+	@Benchmark
+	public byte[] serializeList() {
+		return mapper.writeValueAsBytes(list);
+	}
+
+	@Benchmark
+	public List<StudentDTO> deserializeList() {
+		return mapper.readValue(listBytes, STUDENT_LIST);
+	}
+}
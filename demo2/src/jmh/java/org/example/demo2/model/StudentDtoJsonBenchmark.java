@@ -0,0 +1,69 @@
+package org.example.demo2.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON cost of the student payloads with the same Jackson (3.x) the MVC message
+ * converters use: a single StudentDTO both ways and a full page of results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentDtoJsonBenchmark {
+
+	private JsonMapper mapper;
+	private StudentDTO dto;
+	private byte[] requestBody;
+	private StudentPage page;
+
+	@Setup
+	public void setup() {
+		mapper = JsonMapper.builder().build();
+
+		dto = student(42L);
+		requestBody = mapper.writeValueAsBytes(dto);
+
+		List<StudentDTO> content = new ArrayList<>();
+		for (long id = 1; id <= 50; id++) {
+			content.add(student(id));
+		}
+		page = new StudentPage(content, 50, 50L);
+	}
+
+	private static StudentDTO student(long id) {
+		return new StudentDTO(id, "First" + id, "Last" + id, "student" + id + "@gmail.com",
+				"student" + id, id, id, "Passw0rd!", "USER");
+	}
+
+	@Benchmark
+	public byte[] serializeStudent() {
+		return mapper.writeValueAsBytes(dto);
+	}
+
+	@Benchmark
+	public StudentDTO deserializeStudent() {
+		return mapper.readValue(requestBody, StudentDTO.class);
+	}
+
+	@Benchmark
+	public byte[] serializePage() {
+		return mapper.writeValueAsBytes(page);
+	}
+}
@@ -0,0 +1,65 @@
+package org.example.demo2.model;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.groups.Default;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of StudentDTO as done for every create and batch row; the
+ * invalid case also pays for building the violation messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentDtoValidationBenchmark {
+
+	private ValidatorFactory factory;
+	private Validator validator;
+	private StudentDTO valid;
+	private StudentDTO invalid;
+
+	@Setup
+	public void setup() {
+		factory = Validation.buildDefaultValidatorFactory();
+		validator = factory.getValidator();
+
+		valid = new StudentDTO(null, "Ada", "Lovelace", "ada.lovelace@gmail.com", "ada",
+				null, null, "Passw0rd!", "USER");
+		invalid = new StudentDTO(null, "", "Lovelace", "ada@example.com", "ada",
+				null, null, "weak", "USER");
+	}
+
+	@TearDown
+	public void tearDown() {
+		factory.close();
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<StudentDTO>> validateValid() {
+		return validator.validate(valid, Default.class, StudentDTO.Create.class);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<StudentDTO>> validateInvalid() {
+		return validator.validate(invalid, Default.class, StudentDTO.Create.class);
+	}
+}
@@ -0,0 +1,126 @@
+package org.example.demo2.monitoring;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of request threads that log: a synchronous file appender (the
+ * default setup, every call writes and flushes under the appender lock) against
+ * the prod profile's non-blocking AsyncAppender, and Hibernate's per-statement
+ * SQL log written in full against sampled by SamplingTurboFilter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LoggingBenchmark {
+
+	private static final String SQL = "select s1_0.id,s1_0.username,s1_0.password from student s1_0 where s1_0.username=?";
+
+	@Param({"sync", "async"})
+	public String appender;
+
+	@Param({"1", "1000"})
+	public int sqlSampleRate;
+
+	private LoggerContext context;
+	private Path logFile;
+	private Logger requestLog;
+	private Logger sqlLog;
+
+	@Setup
+	public void setup() throws Exception {
+		// a private context so the benchmark does not depend on logback-spring.xml
+		context = new LoggerContext();
+		logFile = Files.createTempFile("logging-benchmark", ".log");
+
+		PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+		encoder.setContext(context);
+		encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5level [%thread] %logger{36} : %msg%n");
+		encoder.start();
+
+		FileAppender<ILoggingEvent> file = new FileAppender<>();
+		file.setContext(context);
+		file.setName("FILE");
+		file.setFile(logFile.toString());
+		file.setEncoder(encoder);
+		file.start();
+
+		Appender<ILoggingEvent> target = file;
+		if ("async".equals(appender)) {
+			AsyncAppender async = new AsyncAppender();
+			async.setContext(context);
+			async.setName("ASYNC");
+			async.setQueueSize(8192);
+			async.setNeverBlock(true);
+			async.setIncludeCallerData(false);
+			async.addAppender(file);
+			async.start();
+			target = async;
+		}
+
+		SamplingTurboFilter sampling = new SamplingTurboFilter();
+		sampling.setContext(context);
+		sampling.setLoggerName("org.hibernate.SQL");
+		sampling.setRate(sqlSampleRate);
+		sampling.start();
+		context.addTurboFilter(sampling);
+
+		Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+		root.setLevel(Level.INFO);
+		root.addAppender(target);
+
+		requestLog = context.getLogger("org.example.demo2.controllers.Controller");
+		sqlLog = context.getLogger("org.hibernate.SQL");
+		sqlLog.setLevel(Level.DEBUG);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		context.stop();
+		Files.deleteIfExists(logFile);
+	}
+
+	@Benchmark
+	public void infoPerRequest() {
+		requestLog.info("Fetching student with id {}", 42L);
+	}
+
+	@Benchmark
+	public void debugPerRequestDisabled() {
+		requestLog.debug("Fetching student with id {}", 42L);
+	}
+
+	@Benchmark
+	public void sqlStatement() {
+		if (sqlLog.isDebugEnabled()) {
+			sqlLog.debug(SQL);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package org.example.demo2.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification cost: signing on login, a full HS256 check on
+ * the first request with a token, and the verified-token cache on the rest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+	static final String SECRET = "benchmark-secret-key-for-hs256-signing-0123456789";
+
+	private JwtUtil jwtUtil;
+	private StudentPrincipal principal;
+	private String token;
+
+	@Setup
+	public void setup() {
+		jwtUtil = newJwtUtil(10_000);
+		principal = new StudentPrincipal(42L, "bench-user", "{bcrypt}hash", "USER", 0L);
+		token = jwtUtil.generateToken(principal);
+		jwtUtil.parseClaims(token);
+	}
+
+	static JwtUtil newJwtUtil(long cacheMaxSize) {
+		JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000L, cacheMaxSize,
+				new CredentialVersionRegistry(), new SimpleMeterRegistry());
+		jwtUtil.init();
+		return jwtUtil;
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return jwtUtil.generateToken(principal);
+	}
+
+	@Benchmark
+	public Claims verifyUncached() {
+		return jwtUtil.verify(token);
+	}
+
+	@Benchmark
+	public Claims parseClaimsCached() {
+		return jwtUtil.parseClaims(token);
+	}
+
+	@Benchmark
+	public String extractUsername() {
+		return jwtUtil.extractUsername(token);
+	}
+
+	@Benchmark
+	public boolean validateToken() {
+		return jwtUtil.validateToken(token, principal);
+	}
+}
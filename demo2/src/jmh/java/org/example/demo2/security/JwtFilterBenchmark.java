@@ -0,0 +1,65 @@
+package org.example.demo2.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pass of an authenticated request through JwtFilter in stateless-principal
+ * mode, so the number is the filter itself (cached claims, principal built from
+ * claims, validation, security context) without a database lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+	private JwtFilter filter;
+	private String authorization;
+
+	@Setup
+	public void setup() {
+		JwtUtil jwtUtil = JwtBenchmark.newJwtUtil(10_000);
+
+		// stateless principal: no user lookup, so no CustomUserDetailsService; an empty denylist
+		filter = new JwtFilter(jwtUtil, null, new TokenDenylist(Path.of("target/jmh-revoked-tokens.log"), 1000), true);
+
+		authorization = "Bearer " + jwtUtil.generateToken(
+				new StudentPrincipal(42L, "bench-user", null, "USER", 0L));
+	}
+
+	@TearDown
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse authenticatedRequest() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/students/42");
+		request.addHeader("Authorization", authorization);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new MockFilterChain());
+
+		SecurityContextHolder.clearContext();
+		return response;
+	}
+}
@@ -0,0 +1,62 @@
+package org.example.demo2.services;
+
+import org.example.demo2.entities.Student;
+import org.example.demo2.model.StudentDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO/entity mapping in StudentMapper, including the name split for rows
+ * that only have the legacy combined name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentMappingBenchmark {
+
+	private StudentDTO dto;
+	private Student student;
+	private Student legacyStudent;
+
+	@Setup
+	public void setup() {
+		dto = new StudentDTO(null, "Ada", "Lovelace", "ada.lovelace@gmail.com", "ada",
+				null, null, "Passw0rd!", "USER");
+
+		student = StudentMapper.toEntity(dto);
+		student.setId(42L);
+
+		legacyStudent = StudentMapper.toEntity(dto);
+		legacyStudent.setId(43L);
+		legacyStudent.setFirstName(null);
+		legacyStudent.setLastName(null);
+	}
+
+	@Benchmark
+	public Student dtoToEntity() {
+		return StudentMapper.toEntity(dto);
+	}
+
+	@Benchmark
+	public StudentDTO entityToDto() {
+		return StudentMapper.toDto(student);
+	}
+
+	@Benchmark
+	public StudentDTO entityToDtoLegacyName() {
+		return StudentMapper.toDto(legacyStudent);
+	}
+}
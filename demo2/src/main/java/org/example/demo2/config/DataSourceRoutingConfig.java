@@ -0,0 +1,108 @@
+package org.example.demo2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.demo2.datasource.ReadWriteRoutingDataSource;
+import org.example.demo2.datasource.ReplicaCacheModeJpaDialect;
+import org.example.demo2.datasource.ReadYourWritesTracker;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Primary and replica pools behind a read/write routing DataSource. Replaces
+ * the single auto-configured pool when app.datasource.routing.enabled is set;
+ * the primary keeps the spring.datasource.* settings, the replica takes its
+ * own url and credentials (defaulting to the primary's) from
+ * app.datasource.replica.*.
+ *
+ * Read-only transactions do not write to the Hibernate caches while routing
+ * is on, see ReplicaCacheModeJpaDialect.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username:}") String username,
+            @Value("${spring.datasource.password:}") String password,
+            @Value("${spring.datasource.driver-class-name:}") String driverClassName) {
+        return pool("primary", url, username, password, driverClassName);
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${spring.datasource.driver-class-name:}") String driverClassName) {
+        HikariDataSource replica = pool("replica", url, username, password, driverClassName);
+        replica.setReadOnly(true);
+        // start without the replica; reads use the primary until it answers
+        replica.setInitializationFailTimeout(-1);
+        // a replica that does not answer quickly is treated as down
+        replica.setConnectionTimeout(1000);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 @Qualifier("replicaDataSource") HikariDataSource replica,
+                                 ReadYourWritesTracker readYourWrites,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.datasource.routing.replica-retry-after:30s}") Duration retryAfter) {
+
+        Counter fallbacks = Counter.builder("datasource.replica.fallback")
+                .description("Read-only connections taken from the primary because the replica failed")
+                .register(meterRegistry);
+
+        ReadWriteRoutingDataSource routing =
+                new ReadWriteRoutingDataSource(primary, replica, readYourWrites, retryAfter, fallbacks);
+
+        // the routing decision needs the transaction's read-only flag, which is set after the connection is requested
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager() {
+            @Override
+            public void afterPropertiesSet() {
+                // the factory's own dialect is applied here, ours has to replace it afterwards
+                super.afterPropertiesSet();
+                setJpaDialect(new ReplicaCacheModeJpaDialect());
+            }
+        };
+        transactionManager.setEntityManagerFactory(entityManagerFactory);
+        return transactionManager;
+    }
+
+    private static HikariDataSource pool(String name, String url, String username,
+                                         String password, String driverClassName) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        if (!driverClassName.isEmpty()) {
+            pool.setDriverClassName(driverClassName);
+        }
+        return pool;
+    }
+}
@@ -1,8 +1,11 @@
 package org.example.demo2.config;
 
+import org.example.demo2.security.BoundedPasswordEncoder;
 import org.example.demo2.security.JwtFilter;
+import org.example.demo2.security.RateLimitFilter;
 import org.example.demo2.services.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -14,11 +17,14 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -26,7 +32,23 @@ public class SecurityConfig {
     @Autowired
     private JwtFilter jwtFilter;
     @Autowired
+    private RateLimitFilter rateLimitFilter;
+    @Autowired
     private CustomUserDetailsService customUserDetailsService;
+
+    // 0 = one hashing thread per CPU core
+    @Value("${security.password.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${security.password.hash-queue-capacity:100}")
+    private int hashQueueCapacity;
+
+    @Value("${security.password.hash-timeout:5s}")
+    private Duration hashTimeout;
+
+    // stored hashes with a lower cost are re-encoded on the next successful login
+    @Value("${security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 
@@ -47,10 +69,19 @@ public class SecurityConfig {
                         // other student APIs require login (USER or ADMIN)
                         .requestMatchers("/students/**").authenticated()
 
+                        // ADMIN only: internal statistics
+                        .requestMatchers("/admin/**").hasRole("ADMIN")
+
+                        // health checks and the Prometheus scrape; other actuator endpoints are ADMIN only
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // everything else
                         .anyRequest().permitAll()
                 )
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                // throttled requests are refused before the token check or any password hashing
+                .addFilterBefore(rateLimitFilter, JwtFilter.class);
 
         return http.build();
     }
@@ -64,12 +95,15 @@ public class SecurityConfig {
 //                .build();
 //        return new InMemoryUserDetailsManager(user,admin);
 
-        return new CustomUserDetailsService();
+        // share the component instance so login and JwtFilter use (and invalidate) the same cache
+        return customUserDetailsService;
     }
     @Bean
     public DaoAuthenticationProvider authenticationProvider(){
         DaoAuthenticationProvider authProvider=new DaoAuthenticationProvider(userDetailService(passwordEncoder()));
         authProvider.setPasswordEncoder(passwordEncoder());
+        // re-hash and store the password when its encoding is outdated
+        authProvider.setUserDetailsPasswordService(customUserDetailsService);
         return authProvider;
     }
     @Bean
@@ -79,7 +113,16 @@ public class SecurityConfig {
 
 
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(){
+        // BCrypt runs on its own bounded pool, never on the servlet request threads
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+
+        // new hashes are stored as {bcrypt}...; older hashes without a prefix are still matched as BCrypt
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return new BoundedPasswordEncoder(delegating, threads, hashQueueCapacity, hashTimeout);
     }
 }
\ No newline at end of file
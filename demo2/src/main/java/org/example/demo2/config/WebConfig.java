@@ -0,0 +1,77 @@
+package org.example.demo2.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tools.jackson.databind.DeserializationConfig;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.MapperFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SerializationConfig;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.databind.cfg.EnumFeature;
+import tools.jackson.databind.cfg.MapperBuilder;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // configured by Boot from spring.jackson.* and every JsonMapperBuilderCustomizer bean
+    private final JsonMapper jsonMapper;
+
+    public WebConfig(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * CBOR and Smile next to JSON, for internal callers that send
+     * Accept / Content-Type application/cbor or application/x-jackson-smile.
+     * Same DTOs and annotations as JSON, so the binary encodings only save the
+     * text encoding and size. They sit after the JSON converter, so a request
+     * without a specific Accept header still gets JSON.
+     */
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.withCborConverter(new JacksonCborHttpMessageConverter(likeJson(CBORMapper.builder()).build()))
+                .withSmileConverter(new JacksonSmileHttpMessageConverter(likeJson(SmileMapper.builder()).build()));
+    }
+
+    /**
+     * Boot's customizers only accept a JsonMapper.Builder, so their result is
+     * carried over from the JsonMapper they built: modules, features, inclusion,
+     * naming and date handling. All three formats then read and write the DTOs
+     * the same way, whatever is configured for JSON.
+     */
+    private <M extends ObjectMapper, B extends MapperBuilder<M, B>> B likeJson(B builder) {
+        SerializationConfig serialization = jsonMapper.serializationConfig();
+        DeserializationConfig deserialization = jsonMapper.deserializationConfig();
+
+        for (MapperFeature feature : MapperFeature.values()) {
+            builder.configure(feature, serialization.isEnabled(feature));
+        }
+        for (SerializationFeature feature : SerializationFeature.values()) {
+            builder.configure(feature, serialization.isEnabled(feature));
+        }
+        for (DeserializationFeature feature : DeserializationFeature.values()) {
+            builder.configure(feature, deserialization.isEnabled(feature));
+        }
+        for (DateTimeFeature feature : DateTimeFeature.values()) {
+            builder.configure(feature, serialization.isEnabled(feature));
+        }
+        for (EnumFeature feature : EnumFeature.values()) {
+            builder.configure(feature, serialization.isEnabled(feature));
+        }
+
+        return builder.addModules(jsonMapper.registeredModules())
+                .changeDefaultPropertyInclusion(inclusion -> serialization.getDefaultPropertyInclusion())
+                .propertyNamingStrategy(serialization.getPropertyNamingStrategy())
+                .defaultDateFormat(serialization.getDateFormat())
+                .defaultTimeZone(serialization.getTimeZone())
+                .defaultLocale(serialization.getLocale());
+    }
+}
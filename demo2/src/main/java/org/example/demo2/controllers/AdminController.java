@@ -0,0 +1,143 @@
+package org.example.demo2.controllers;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.example.demo2.entities.Student;
+import org.example.demo2.exceptions.InvalidRequestException;
+import org.example.demo2.security.BoundedPasswordEncoder;
+import org.example.demo2.security.JwtUtil;
+import org.example.demo2.security.TokenDenylist;
+import org.example.demo2.services.CustomUserDetailsService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private final JwtUtil jwtUtil;
+    private final CustomUserDetailsService userDetailsService;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TokenDenylist tokenDenylist;
+
+    public AdminController(JwtUtil jwtUtil,
+                           CustomUserDetailsService userDetailsService,
+                           BoundedPasswordEncoder passwordEncoder,
+                           EntityManagerFactory entityManagerFactory,
+                           TokenDenylist tokenDenylist) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.passwordEncoder = passwordEncoder;
+        this.entityManagerFactory = entityManagerFactory;
+        this.tokenDenylist = tokenDenylist;
+    }
+
+    /**
+     * Revokes another client's access token, e.g. a leaked one, until it expires.
+     * Body: {"token": "&lt;jwt&gt;"}
+     */
+    @PostMapping("/tokens/revoke")
+    public ResponseEntity<Map<String, Object>> revokeToken(@RequestBody Map<String, String> body) {
+
+        String token = body.get("token");
+        if (token == null || token.isBlank()) {
+            throw new InvalidRequestException("token must not be empty");
+        }
+
+        Claims claims;
+        try {
+            claims = jwtUtil.parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            // expired or forged tokens are rejected anyway
+            throw new InvalidRequestException("Token is invalid or already expired");
+        }
+
+        if (claims.getId() == null) {
+            throw new InvalidRequestException("Token has no id and cannot be revoked on its own");
+        }
+
+        tokenDenylist.revoke(claims);
+        log.info("Admin revoked token {} of user {}", claims.getId(), claims.getSubject());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("revoked", true);
+        response.put("tokenId", claims.getId());
+        response.put("expiresAt", claims.getExpiration().toInstant());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+
+        log.debug("Fetching internal cache statistics");
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("jwtTokenCache", cacheStats(jwtUtil.tokenCacheStats(), jwtUtil.tokenCacheSize()));
+        stats.put("userCache", cacheStats(userDetailsService.cacheStats(), userDetailsService.cacheSize()));
+        stats.put("passwordHashing", hashingStats());
+        stats.put("secondLevelCache", secondLevelCacheStats());
+        stats.put("revokedTokens", tokenDenylist.size());
+
+        return ResponseEntity.ok(stats);
+    }
+
+    private Map<String, Object> hashingStats() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("poolSize", passwordEncoder.getPoolSize());
+        body.put("active", passwordEncoder.getActiveCount());
+        body.put("queueDepth", passwordEncoder.getQueueDepth());
+        body.put("queueCapacity", passwordEncoder.getQueueCapacity());
+        body.put("hashes", passwordEncoder.getHashCount());
+        body.put("rejected", passwordEncoder.getRejectedCount());
+        body.put("avgHashMillis", passwordEncoder.getAverageHashMillis());
+        body.put("maxHashMillis", passwordEncoder.getMaxHashMillis());
+        return body;
+    }
+
+    private Map<String, Object> secondLevelCacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("hits", statistics.getSecondLevelCacheHitCount());
+        body.put("misses", statistics.getSecondLevelCacheMissCount());
+        body.put("puts", statistics.getSecondLevelCachePutCount());
+        body.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        body.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Student.CACHE_REGION);
+        if (region != null) {
+            Map<String, Object> student = new LinkedHashMap<>();
+            student.put("hits", region.getHitCount());
+            student.put("misses", region.getMissCount());
+            student.put("puts", region.getPutCount());
+            student.put("elementsInMemory", region.getElementCountInMemory());
+            body.put(Student.CACHE_REGION, student);
+        }
+        return body;
+    }
+
+    private Map<String, Object> cacheStats(CacheStats cacheStats, long size) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", size);
+        body.put("hits", cacheStats.hitCount());
+        body.put("misses", cacheStats.missCount());
+        body.put("hitRate", cacheStats.hitRate());
+        body.put("evictions", cacheStats.evictionCount());
+        return body;
+    }
+}
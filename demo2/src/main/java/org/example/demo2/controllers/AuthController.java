@@ -2,14 +2,19 @@ package org.example.demo2.controllers;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.demo2.entities.Student;
+import org.example.demo2.exceptions.InvalidRequestException;
+import org.example.demo2.exceptions.ServiceBusyException;
+import org.example.demo2.model.AuthTokens;
 import org.example.demo2.security.JwtUtil;
+import org.example.demo2.security.StudentPrincipal;
+import org.example.demo2.security.TokenDenylist;
+import org.example.demo2.services.RefreshTokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -25,10 +30,16 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @PostMapping("/login")
     public ResponseEntity<Map<String, String>> login(@RequestBody Student user) {
 
-        log.info("Login request received for username {}", user.getUsername());
+        log.debug("Login request received for username {}", user.getUsername());
 
         try {
 
@@ -41,13 +52,20 @@ public class AuthController {
                     )
             );
 
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+            StudentPrincipal principal = (StudentPrincipal) authentication.getPrincipal();
+
+            String token = jwtUtil.generateToken(principal);
+            String refreshToken = refreshTokenService.issue(principal);
 
-            String token = jwtUtil.generateToken(userDetails);
+            log.debug("Login successful for username {}", user.getUsername());
 
-            log.info("Login successful for username {}", user.getUsername());
+            return ResponseEntity.ok(Map.of("token", token, "refreshToken", refreshToken));
 
-            return ResponseEntity.ok(Map.of("token", token));
+        } catch (ServiceBusyException e) {
+
+            log.warn("Login shed for username {}: password hashing saturated", user.getUsername());
+
+            throw e;
 
         } catch (Exception e) {
 
@@ -57,4 +75,48 @@ public class AuthController {
                     .body(Map.of("error", "Invalid Username or Password"));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh
+     * token; the presented one cannot be used again.
+     * Body: {"refreshToken": "..."}
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, String>> refresh(@RequestBody Map<String, String> body) {
+
+        String refreshToken = body.get("refreshToken");
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new InvalidRequestException("refreshToken must not be empty");
+        }
+
+        AuthTokens tokens = refreshTokenService.refresh(refreshToken);
+
+        return ResponseEntity.ok(Map.of("token", tokens.token(), "refreshToken", tokens.refreshToken()));
+    }
+
+    /**
+     * Revokes the presented access token until it expires, and the login
+     * session of the refresh token if one is sent. JwtFilter has already
+     * rejected the request if the access token is invalid.
+     * Body (optional): {"refreshToken": "..."}
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestBody(required = false) Map<String, String> body) {
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        tokenDenylist.revoke(jwtUtil.parseClaims(authHeader.substring(7)));
+
+        if (body != null && body.get("refreshToken") != null) {
+            refreshTokenService.revoke(body.get("refreshToken"));
+        }
+
+        log.debug("Token revoked on logout");
+
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,12 +1,25 @@
 package org.example.demo2.controllers;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.groups.Default;
 import lombok.extern.slf4j.Slf4j;
+import org.example.demo2.model.StudentBatchResult;
 import org.example.demo2.model.StudentDTO;
+import org.example.demo2.model.StudentListVersion;
+import org.example.demo2.model.StudentPage;
+import org.example.demo2.model.StudentStats;
+import org.example.demo2.model.StudentVersion;
 import org.example.demo2.services.StudentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.time.Duration;
 import java.util.List;
 
 @Slf4j
@@ -15,36 +28,104 @@ import java.util.List;
 public class Controller {
 
     private final StudentService studentService;
+    private final Duration exportTimeout;
 
-    public Controller(StudentService studentService) {
+    public Controller(StudentService studentService,
+                      @Value("${students.export.timeout:30m}") Duration exportTimeout) {
         this.studentService = studentService;
+        this.exportTimeout = exportTimeout;
     }
 
     @GetMapping
-    public ResponseEntity<List<StudentDTO>> getAllStudents() {
-        log.info("Fetching all students");
-        return ResponseEntity.ok(studentService.getAllStudents());
+    public ResponseEntity<StudentPage> getAllStudents(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + StudentService.DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
+        log.debug("Fetching students after id {} (limit {})", after, limit);
+
+        StudentListVersion version = studentService.getStudentsVersion(after, limit);
+        String eTag = version.eTag(after, limit);
+
+        // 304 without loading or serializing the page
+        if (request.checkNotModified(eTag, version.lastModifiedMillis())) {
+            return null;
+        }
+
+        return conditional(eTag, version.lastModifiedMillis())
+                .body(studentService.getAllStudents(after, limit));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<StudentDTO>> searchStudents(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "" + StudentService.DEFAULT_SEARCH_LIMIT) int limit) {
+
+        log.debug("Searching students for '{}' (limit {})", q, limit);
+
+        return ResponseEntity.ok(studentService.searchStudents(q, limit));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<StudentStats> getStatistics() {
+
+        log.debug("Fetching student statistics");
+
+        return ResponseEntity.ok(studentService.getStatistics());
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportStudents(HttpServletResponse response) {
+
+        log.info("Exporting all students");
+
+        // fail with 403 before the response is committed
+        studentService.checkExportAllowed();
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        // written on an async thread with its own timeout, other async requests keep the default
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            studentService.exportStudents(response.getOutputStream());
+            return null;
+        });
     }
 
     @PostMapping
     public ResponseEntity<StudentDTO> createStudent(
-            @Valid @RequestBody StudentDTO studentDTO) {
+            @Validated({Default.class, StudentDTO.Create.class}) @RequestBody StudentDTO studentDTO) {
 
-        log.info("Creating student with email {}", studentDTO.getEmail());
+        log.debug("Creating student with email {}", studentDTO.getEmail());
 
         StudentDTO savedStudent = studentService.createStudent(studentDTO);
 
-        log.info("Student created successfully");
+        log.debug("Student created successfully");
 
         return ResponseEntity.status(201).body(savedStudent);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<StudentBatchResult> createStudents(
+            @RequestBody List<StudentDTO> students) {
+
+        log.info("Bulk creating {} students", students.size());
+
+        return ResponseEntity.ok(studentService.createStudents(students));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<StudentDTO> getStudentById(@PathVariable Long id) {
+    public ResponseEntity<StudentDTO> getStudentById(@PathVariable Long id, WebRequest request) {
+
+        log.debug("Fetching student with id {}", id);
+
+        StudentVersion version = studentService.getStudentVersion(id);
 
-        log.info("Fetching student with id {}", id);
+        // 304 without loading or serializing the student
+        if (request.checkNotModified(version.eTag(), version.lastModifiedMillis())) {
+            return null;
+        }
 
-        return ResponseEntity.ok(studentService.getStudentById(id));
+        return conditional(version.eTag(), version.lastModifiedMillis())
+                .body(studentService.getStudentById(id));
     }
 
     @PutMapping("/{id}")
@@ -52,7 +133,7 @@ public class Controller {
             @PathVariable Long id,
             @Valid @RequestBody StudentDTO studentDTO) {
 
-        log.info("Updating student with id {}", id);
+        log.debug("Updating student with id {}", id);
 
         return ResponseEntity.ok(studentService.updateStudent(id, studentDTO));
     }
@@ -60,10 +141,18 @@ public class Controller {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteStudent(@PathVariable Long id) {
 
-        log.info("Deleting student with id {}", id);
+        log.debug("Deleting student with id {}", id);
 
         studentService.deleteStudent(id);
 
         return ResponseEntity.noContent().build();
     }
+
+    private ResponseEntity.BodyBuilder conditional(String eTag, long lastModifiedMillis) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(eTag);
+        if (lastModifiedMillis >= 0) {
+            builder.lastModified(lastModifiedMillis);
+        }
+        return builder;
+    }
 }
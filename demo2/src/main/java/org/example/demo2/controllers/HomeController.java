@@ -13,7 +13,7 @@ public class HomeController {
     @GetMapping
     public String getHomePage(){
 
-        log.info("Home page API called");
+        log.debug("Home page API called");
 
         return "Welcome to Home Page";
     }
@@ -21,7 +21,7 @@ public class HomeController {
     @GetMapping("/dashboard")
     public String getDashBoard(){
 
-        log.info("Dashboard API called - Login Successful");
+        log.debug("Dashboard API called - Login Successful");
 
         return "Login Successful!";
     }
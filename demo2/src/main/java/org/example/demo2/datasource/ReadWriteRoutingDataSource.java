@@ -0,0 +1,91 @@
+package org.example.demo2.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else (writes,
+ * reads outside a transaction) to the primary. Must sit behind a
+ * LazyConnectionDataSourceProxy: the transaction manager asks for a connection
+ * before the read-only flag is set, the proxy delays that until the first
+ * statement.
+ *
+ * Reads stay on the primary while the reader is in its read-your-writes window.
+ * They also stay there for a while after the replica failed to hand out a
+ * connection; the next read after that tries the replica again.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReadYourWritesTracker readYourWrites;
+    private final long retryAfterNanos;
+    private final Counter fallbacks;
+
+    private volatile boolean replicaDown;
+    private volatile long replicaRetryAt;
+
+    public ReadWriteRoutingDataSource(DataSource primary,
+                                      DataSource replica,
+                                      ReadYourWritesTracker readYourWrites,
+                                      Duration replicaRetryAfter,
+                                      Counter fallbacks) {
+        this.primary = primary;
+        this.replica = replica;
+        this.readYourWrites = readYourWrites;
+        this.retryAfterNanos = replicaRetryAfter.toNanos();
+        this.fallbacks = fallbacks;
+
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || (replicaDown && System.nanoTime() - replicaRetryAt < 0)
+                || readYourWrites.mustReadPrimary()) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target != replica) {
+            return target.getConnection();
+        }
+
+        try {
+            Connection connection = replica.getConnection();
+            if (replicaDown) {
+                replicaDown = false;
+                log.info("Replica is back, routing read-only transactions to it again");
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            // pool timeout or failed pool start; the read can be served by the primary
+            fallbacks.increment();
+            replicaRetryAt = System.nanoTime() + retryAfterNanos;
+            if (!replicaDown) {
+                replicaDown = true;
+                log.warn("Replica unavailable, reading from the primary for the next {} ms",
+                        Duration.ofNanos(retryAfterNanos).toMillis(), e);
+            }
+            return primary.getConnection();
+        }
+    }
+}
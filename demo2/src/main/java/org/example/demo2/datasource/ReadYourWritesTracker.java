@@ -0,0 +1,69 @@
+package org.example.demo2.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Students who changed their own row a moment ago. While a student is in that
+ * window, their read-only transactions stay on the primary, so they never see
+ * the replica lag behind their own update (or miss an account they just
+ * created when logging in).
+ *
+ * The reader is the authenticated user, or the username a lookup is made for
+ * before authentication (login, JwtFilter).
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    private final ThreadLocal<String> lookupSubject = new ThreadLocal<>();
+
+    public ReadYourWritesTracker(@Value("${app.datasource.routing.read-your-writes:5s}") Duration window,
+                                 @Value("${app.datasource.routing.max-tracked-writers:100000}") long maxWriters) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxWriters)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void recordWrite(String username) {
+        if (username != null) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Runs a lookup on behalf of the given username, for reads made before the
+     * request is authenticated.
+     */
+    public <T> T readAs(String username, Supplier<T> lookup) {
+        String previous = lookupSubject.get();
+        lookupSubject.set(username);
+        try {
+            return lookup.get();
+        } finally {
+            if (previous == null) {
+                lookupSubject.remove();
+            } else {
+                lookupSubject.set(previous);
+            }
+        }
+    }
+
+    boolean mustReadPrimary() {
+        String username = lookupSubject.get();
+        if (username == null) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            username = auth == null ? null : auth.getName();
+        }
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+}
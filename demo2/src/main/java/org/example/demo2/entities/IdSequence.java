@@ -0,0 +1,24 @@
+package org.example.demo2.entities;
+import jakarta.persistence.*;
+import lombok.*;
+
+
+/**
+ * Pooled id source: each row hands out blocks of ids to application instances,
+ * so entities get their id before the INSERT and Hibernate can batch inserts.
+ */
+@Entity
+@Table(name="id_sequence")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class IdSequence {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private Long nextVal;
+}
@@ -0,0 +1,80 @@
+package org.example.demo2.entities;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * One refresh token of a login session. Only the SHA-256 of the token is
+ * stored. Every refresh marks the presented token used and issues the next one
+ * in the same family; a used token coming back means it was copied, and the
+ * whole family is revoked.
+ */
+@Entity
+@Table(name="refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_token_expires_at", columnList = "expiresAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class RefreshToken implements Persistable<String> {
+
+    // base64url SHA-256 of the token handed to the client
+    @Id
+    @Column(length = 64)
+    @ToString.Exclude
+    private String tokenHash;
+
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Long studentId;
+
+    @Column(nullable = false)
+    private String username;
+
+    // credential version at login; a password change ends the session
+    private long credentialVersion;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+
+    // set once, when the token is exchanged for the next one
+    private LocalDateTime usedAt;
+
+    private boolean revoked;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    @Override
+    public String getId() {
+        return tokenHash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        newEntity = false;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
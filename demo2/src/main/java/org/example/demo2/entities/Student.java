@@ -1,27 +1,45 @@
 package org.example.demo2.entities;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.Persistable;
+
 import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name="Student")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Student.CACHE_REGION)
+@Table(name="Student", uniqueConstraints = {
+        @UniqueConstraint(name = Student.USERNAME_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = Student.EMAIL_CONSTRAINT, columnNames = "email")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
-public class Student {
+public class Student implements Persistable<Long> {
+
+    public static final String USERNAME_CONSTRAINT = "uk_student_username";
+    public static final String EMAIL_CONSTRAINT = "uk_student_email";
+    public static final String CACHE_REGION = "student";
 
+    // assigned from StudentIdAllocator before persisting; IDENTITY would disable insert batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String name;
 
-    @Column(unique = true, nullable = false)
+    // stored separately so reads do not have to split name
+    private String firstName;
+    private String lastName;
+
+    @Column(nullable = false)
     private String email;
 
+    @Column(nullable = false)
     private String username;
 
     @Column(unique = true, nullable = false)
@@ -29,12 +47,33 @@ public class Student {
 
     private String role;
 
+    // bumped whenever the password or role changes; tokens carrying an older value are rejected
+    private Long credentialVersion = 0L;
+
     private Long createdBy;
     private Long modifiedBy;
 
     private LocalDateTime createdAt;
     private LocalDateTime modifiedAt;
 
+    // ids are assigned up-front, so Spring Data cannot tell new rows apart by a null id
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        newEntity = false;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -1,7 +1,10 @@
 package org.example.demo2.exceptions;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -16,26 +19,60 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Map<String, Object>> handleNotFound(ResourceNotFoundException ex) {
         log.error("Resource not found: {}", ex.getMessage());
+        count(ex, HttpStatus.NOT_FOUND);
         return buildResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler(UnauthorizedActionException.class)
     public ResponseEntity<Map<String, Object>> handleUnauthorized(UnauthorizedActionException ex) {
         log.warn("Unauthorized action: {}", ex.getMessage());
+        count(ex, HttpStatus.FORBIDDEN);
         return buildResponse(ex.getMessage(), HttpStatus.FORBIDDEN);
     }
 
     @ExceptionHandler(DuplicateResourceException.class)
     public ResponseEntity<Map<String, Object>> handleDuplicate(DuplicateResourceException ex) {
         log.warn("Duplicate resource: {}", ex.getMessage());
+        count(ex, HttpStatus.CONFLICT);
         return buildResponse(ex.getMessage(), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidRequest(InvalidRequestException ex) {
+        log.warn("Invalid request: {}", ex.getMessage());
+        count(ex, HttpStatus.BAD_REQUEST);
+        return buildResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidToken(InvalidTokenException ex) {
+        log.warn("Invalid token: {}", ex.getMessage());
+        count(ex, HttpStatus.UNAUTHORIZED);
+        return buildResponse(ex.getMessage(), HttpStatus.UNAUTHORIZED);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleBusy(ServiceBusyException ex) {
+        log.warn("Service busy: {}", ex.getMessage());
+        count(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(buildResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE).getBody());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
+        count(ex, HttpStatus.BAD_REQUEST);
+
         Map<String, String> fieldErrors = new HashMap<>();
 
         ex.getBindingResult()
@@ -53,6 +90,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<Map<String, Object>> handleDB(DataIntegrityViolationException ex) {
         log.error("Database constraint violation", ex);
+        count(ex, HttpStatus.CONFLICT);
         return buildResponse("Duplicate value. Already exists.", HttpStatus.CONFLICT);
     }
 
@@ -65,21 +103,39 @@ public class GlobalExceptionHandler {
         }
 
         if (root instanceof UnauthorizedActionException ua) {
+            count(ua, HttpStatus.FORBIDDEN);
             return buildResponse(ua.getMessage(), HttpStatus.FORBIDDEN);
         }
 
         if (root instanceof ResourceNotFoundException rn) {
+            count(rn, HttpStatus.NOT_FOUND);
             return buildResponse(rn.getMessage(), HttpStatus.NOT_FOUND);
         }
 
         if (root instanceof DuplicateResourceException dr) {
+            count(dr, HttpStatus.CONFLICT);
             return buildResponse(dr.getMessage(), HttpStatus.CONFLICT);
         }
 
+        if (root instanceof ServiceBusyException sb) {
+            return handleBusy(sb);
+        }
+
         log.error("Unhandled exception", ex);
+        count(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         return buildResponse("Something went wrong", HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    // tags are the exception class and status only, both bounded sets
+    private void count(Throwable ex, HttpStatus status) {
+        Counter.builder("api.exceptions")
+                .description("Exceptions mapped to an error response")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
+
     private ResponseEntity<Map<String, Object>> buildResponse(String message, HttpStatus status) {
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now());
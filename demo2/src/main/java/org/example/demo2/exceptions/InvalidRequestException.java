@@ -0,0 +1,7 @@
+package org.example.demo2.exceptions;
+
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.demo2.exceptions;
+
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
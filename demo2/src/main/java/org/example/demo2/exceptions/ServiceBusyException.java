@@ -0,0 +1,7 @@
+package org.example.demo2.exceptions;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.demo2.model;
+
+/**
+ * A short-lived access token plus the refresh token that replaces it without
+ * another password check.
+ */
+public record AuthTokens(String token, String refreshToken) {
+}
@@ -0,0 +1,22 @@
+package org.example.demo2.model;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRowResult {
+
+    // position of the row in the request body
+    private int index;
+
+    private boolean created;
+
+    private Long id;
+
+    // field -> message, empty when the row was created
+    private Map<String, String> errors;
+}
@@ -0,0 +1,18 @@
+package org.example.demo2.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentBatchResult {
+
+    private int created;
+
+    private int failed;
+
+    private List<BatchRowResult> results;
+}
@@ -1,5 +1,6 @@
 package org.example.demo2.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
@@ -11,6 +12,13 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class StudentDTO {
 
+    /**
+     * Constraints that only apply when a student is created; on update the
+     * password may be left out to keep the current one.
+     */
+    public interface Create {
+    }
+
     private Long id;
 
     @NotBlank(message = "First name must not be empty")
@@ -32,7 +40,9 @@ public class StudentDTO {
     private Long createdBy;
     private Long modifiedBy;
 
-    @NotBlank(message = "Password must not be empty")
+    // accepted on create/update, never written to a response
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @NotBlank(message = "Password must not be empty", groups = Create.class)
     @Size(min = 8, message = "Password must have at least 8 characters")
     @Pattern(
             regexp = "^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[@#$%^&+=!*()_-]).{8,}$",
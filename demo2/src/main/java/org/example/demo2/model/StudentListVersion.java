@@ -0,0 +1,35 @@
+package org.example.demo2.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Aggregate validator for a page of GET /students, over the rows the page is
+ * built from: the first limit + 1 after the cursor. Any insert, update or delete
+ * among them changes the count, the highest id or the latest modifiedAt; rows
+ * further on cannot change the page and are never read.
+ */
+public record StudentListVersion(Long count, Long maxId, LocalDateTime lastModified) {
+
+    public static StudentListVersion of(List<StudentVersion> rows) {
+        long maxId = 0;
+        LocalDateTime lastModified = null;
+        for (StudentVersion row : rows) {
+            maxId = Math.max(maxId, row.id());
+            if (row.modifiedAt() != null && (lastModified == null || row.modifiedAt().isAfter(lastModified))) {
+                lastModified = row.modifiedAt();
+            }
+        }
+        return new StudentListVersion((long) rows.size(), rows.isEmpty() ? null : maxId, lastModified);
+    }
+
+    public String eTag(Long after, int limit) {
+        return "\"" + (after == null ? 0 : after) + "-" + limit + "-" + count + "-" + maxId
+                + "-" + lastModifiedMillis() + "\"";
+    }
+
+    public long lastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.demo2.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentPage {
+
+    private List<StudentDTO> content;
+
+    private int limit;
+
+    // pass as "after" to fetch the next page; null when this is the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,17 @@
+package org.example.demo2.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Student counts kept in memory by StudentStatistics; exact as of reconciledAt,
+ * plus the creates and deletes applied since.
+ */
+public record StudentStats(
+        long total,
+        Map<String, Long> byRole,
+        Map<LocalDate, Long> createdPerDay,
+        LocalDateTime reconciledAt
+) {
+}
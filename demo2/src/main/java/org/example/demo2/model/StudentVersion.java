@@ -0,0 +1,19 @@
+package org.example.demo2.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * The few columns needed to answer a conditional GET for one student
+ * (authorization via createdBy, validators via modifiedAt) without loading it.
+ */
+public record StudentVersion(Long id, Long createdBy, LocalDateTime modifiedAt) {
+
+    public String eTag() {
+        return "\"" + id + "-" + lastModifiedMillis() + "\"";
+    }
+
+    public long lastModifiedMillis() {
+        return modifiedAt == null ? -1 : modifiedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
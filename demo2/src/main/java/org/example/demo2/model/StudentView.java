@@ -0,0 +1,37 @@
+package org.example.demo2.model;
+
+/**
+ * Read-side projection of a Student: only the columns returned by the API,
+ * selected directly into this record so no entity (or password hash) is loaded.
+ */
+public record StudentView(
+        Long id,
+        String firstName,
+        String lastName,
+        String email,
+        String username,
+        String role,
+        Long createdBy,
+        Long modifiedBy
+) {
+
+    /**
+     * Used by the JPQL projections, which also select the combined name: rows
+     * created before firstName/lastName existed get them split from it.
+     */
+    public StudentView(Long id, String firstName, String lastName, String name, String email,
+                       String username, String role, Long createdBy, Long modifiedBy) {
+        this(id,
+                firstName != null ? firstName : splitName(name)[0],
+                firstName != null ? lastName : splitName(name)[1],
+                email, username, role, createdBy, modifiedBy);
+    }
+
+    /** Splits a legacy combined name at the first space into first and last name. */
+    public static String[] splitName(String name) {
+        if (name != null && name.contains(" ")) {
+            return name.split(" ", 2);
+        }
+        return new String[] {name, ""};
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.demo2.monitoring;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lets roughly one in {@code rate} events of one logger through and drops the
+ * rest before a logging event is even created. Used in the prod profile to
+ * sample Hibernate's per-statement SQL log (org.hibernate.SQL).
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private String loggerName;
+    private int rate = 100;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level,
+                              String format, Object[] params, Throwable t) {
+
+        // a null format is an isXxxEnabled() check: leave that to the level so the
+        // caller still builds the message, and sample the actual log call
+        if (format == null || !logger.getName().equals(loggerName)) {
+            return FilterReply.NEUTRAL;
+        }
+
+        // random rather than every n-th: no shared counter to contend on
+        return ThreadLocalRandom.current().nextInt(rate) == 0
+                ? FilterReply.NEUTRAL
+                : FilterReply.DENY;
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setRate(int rate) {
+        this.rate = Math.max(1, rate);
+    }
+}
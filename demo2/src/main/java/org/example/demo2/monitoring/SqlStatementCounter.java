@@ -0,0 +1,25 @@
+package org.example.demo2.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on each thread. Registered as the
+ * session factory's StatementInspector, so it sees every statement without a
+ * datasource proxy. The count only grows: callers compare {@link #current()}
+ * before and after a unit of work, which lets measurements nest (the request
+ * filter and a test around it) without resetting each other.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
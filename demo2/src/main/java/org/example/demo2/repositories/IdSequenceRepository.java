@@ -0,0 +1,16 @@
+package org.example.demo2.repositories;
+
+import jakarta.persistence.LockModeType;
+import org.example.demo2.entities.IdSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface IdSequenceRepository extends JpaRepository<IdSequence, String> {
+   @Lock(LockModeType.PESSIMISTIC_WRITE)
+   @Query("select q from IdSequence q where q.name=:name")
+   Optional<IdSequence> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,25 @@
+package org.example.demo2.repositories;
+
+import org.example.demo2.entities.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+   // conditional, so of two concurrent refreshes with the same token only one gets 1 back
+   @Modifying
+   @Query("update RefreshToken t set t.usedAt=:now where t.tokenHash=:tokenHash and t.usedAt is null and t.revoked=false")
+   int markUsed(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+
+   @Modifying
+   @Query("update RefreshToken t set t.revoked=true where t.familyId=:familyId and t.revoked=false")
+   int revokeFamily(@Param("familyId") String familyId);
+
+   @Modifying
+   @Query("delete from RefreshToken t where t.expiresAt < :cutoff")
+   int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,17 +1,121 @@
 package org.example.demo2.repositories;
 
+import jakarta.persistence.QueryHint;
 import org.example.demo2.entities.Student;
+import org.example.demo2.model.StudentVersion;
+import org.example.demo2.model.StudentView;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends JpaRepository<Student, Long>, StudentWriteLookup {
+   // only used to load a row for update or delete: read-write, so it is never routed to the replica,
+   // and it skips the second-level cache (StudentWriteLookupImpl)
+   @Override
+   @Transactional
+   Optional<Student> findById(Long id);
+
+   // principal lookup (login, JwtFilter); read-only, so with replica routing it runs on the replica
+   // and only reads the caches (ReplicaCacheModeJpaDialect)
+   @Transactional(readOnly = true)
+   @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
    Optional<Student> findByUsername(String username);
    @Query("select s.id from Student s where s.username=:username")
    Optional<Long> findIdByUsername(@Param("username") String username);
 
+   // tell which unique key a failed insert hit; read-write, so they see the primary's rows
+   @Transactional
    boolean existsByUsername(String username);
+   @Transactional
    boolean existsByEmail(String email);
+
+   // set-based uniqueness checks for bulk creation
+   @Query("select s.username from Student s where s.username in :usernames")
+   Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+   @Query("select s.email from Student s where s.email in :emails")
+   Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+   // re-encoding only; does not touch modifiedAt or the credential version
+   @Transactional
+   @Modifying
+   @Query("update Student s set s.password=:password where s.username=:username")
+   int updatePassword(@Param("username") String username, @Param("password") String password);
+
+   @Query("select coalesce(max(s.id), 0) from Student s")
+   long findMaxId();
+
+   // read projections: only the returned columns, no managed entities; s.name covers rows
+   // StudentNameBackfill has not reached yet
+   @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+   @Query("select new org.example.demo2.model.StudentView(s.id, s.firstName, s.lastName, s.name, s.email, "
+           + "s.username, s.role, s.createdBy, s.modifiedBy) from Student s where s.id=:id")
+   Optional<StudentView> findViewById(@Param("id") Long id);
+
+   @Query("select new org.example.demo2.model.StudentView(s.id, s.firstName, s.lastName, s.name, s.email, "
+           + "s.username, s.role, s.createdBy, s.modifiedBy) from Student s where s.id>:after order by s.id")
+   // keyset pagination: walks the primary key index, cost does not grow with the offset
+   List<StudentView> findViewsAfter(@Param("after") Long after, Limit limit);
+
+   // search fallback while the in-memory index is unavailable; '!' escapes % and _ in the pattern
+   @Query("select new org.example.demo2.model.StudentView(s.id, s.firstName, s.lastName, s.name, s.email, "
+           + "s.username, s.role, s.createdBy, s.modifiedBy) from Student s "
+           + "where lower(s.username) like :pattern escape '!' or lower(s.email) like :pattern escape '!' "
+           + "or lower(s.name) like :pattern escape '!' order by s.id")
+   List<StudentView> findViewsMatching(@Param("pattern") String pattern, Limit limit);
+
+   // validators for conditional GETs, cheaper than loading and serializing the rows
+   @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+   @Query("select new org.example.demo2.model.StudentVersion(s.id, s.createdBy, s.modifiedAt) "
+           + "from Student s where s.id=:id")
+   Optional<StudentVersion> findVersionById(@Param("id") Long id);
+
+   // the rows a page is built from, same keyset walk as findViewsAfter but three narrow columns
+   @Query("select new org.example.demo2.model.StudentVersion(s.id, s.createdBy, s.modifiedAt) "
+           + "from Student s where s.id>:after order by s.id")
+   List<StudentVersion> findVersionsAfter(@Param("after") Long after, Limit limit);
+
+   // reconciliation of the in-memory statistics: [role, count] and [day, count]
+   @Query("select s.role, count(s) from Student s group by s.role")
+   List<Object[]> countByRole();
+
+   @Query("select cast(s.createdAt as LocalDate), count(s) from Student s where s.createdAt >= :since "
+           + "group by cast(s.createdAt as LocalDate)")
+   List<Object[]> countCreatedPerDaySince(@Param("since") LocalDateTime since);
+
+   // rows written before firstName/lastName existed
+   @Query("select s.id from Student s where s.firstName is null order by s.id")
+   List<Long> findIdsWithoutFirstName(Limit limit);
+
+   // same split as StudentView.splitName, in SQL; a bulk update skips @PreUpdate, so modifiedAt
+   // (and the ETags built from it) only change when a student is really edited
+   @Transactional
+   @Modifying
+   @Query("update Student s set "
+           + "s.firstName = case when locate(' ', s.name) > 0 then substring(s.name, 1, locate(' ', s.name) - 1) "
+           + "else coalesce(s.name, '') end, "
+           + "s.lastName = case when locate(' ', s.name) > 0 then substring(s.name, locate(' ', s.name) + 1) "
+           + "else '' end "
+           + "where s.id in :ids and s.firstName is null")
+   int backfillNames(@Param("ids") Collection<Long> ids);
+
+   // server-side cursor for exports; must be consumed inside a transaction and closed
+   @QueryHints({
+           @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+           @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+   })
+   @Query("select s from Student s order by s.id")
+   Stream<Student> streamAllOrderById();
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package org.example.demo2.repositories;
+
+import org.example.demo2.entities.Student;
+
+import java.util.Optional;
+
+// loads of a row that is about to be changed; StudentRepository exposes it as findById
+public interface StudentWriteLookup {
+   Optional<Student> findById(Long id);
+}
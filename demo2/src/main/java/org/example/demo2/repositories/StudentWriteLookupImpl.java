@@ -0,0 +1,20 @@
+package org.example.demo2.repositories;
+
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.demo2.entities.Student;
+
+import java.util.Optional;
+
+class StudentWriteLookupImpl implements StudentWriteLookup {
+
+   @PersistenceContext
+   private EntityManager entityManager;
+
+   // straight from the primary: an update must never start from a cached copy of the row
+   @Override
+   public Optional<Student> findById(Long id) {
+      return Optional.ofNullable(entityManager.find(Student.class, id, CacheRetrieveMode.BYPASS));
+   }
+}
@@ -0,0 +1,30 @@
+package org.example.demo2.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the latest credential version of students whose password or role
+ * changed (or who were deleted) while this instance was running, so tokens
+ * carrying an older version can be rejected without reading the Student table.
+ */
+@Component
+public class CredentialVersionRegistry {
+
+    private final Map<Long, Long> currentVersions = new ConcurrentHashMap<>();
+
+    public void bump(Long studentId, long version) {
+        currentVersions.merge(studentId, version, Math::max);
+    }
+
+    public void revokeAll(Long studentId) {
+        currentVersions.put(studentId, Long.MAX_VALUE);
+    }
+
+    public boolean isCurrent(Long studentId, long version) {
+        Long current = currentVersions.get(studentId);
+        return current == null || version >= current;
+    }
+}
@@ -1,11 +1,12 @@
 package org.example.demo2.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.example.demo2.services.CustomUserDetailsService;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -24,11 +25,22 @@ import java.util.Map;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
-    @Autowired
-    private JwtUtil jwtUtil;
-
-    @Autowired
-    private CustomUserDetailsService customUserDetailsService;
+    private final JwtUtil jwtUtil;
+    private final CustomUserDetailsService customUserDetailsService;
+    private final TokenDenylist tokenDenylist;
+
+    // when enabled the principal is rebuilt from the token claims instead of the Student table
+    private final boolean statelessPrincipal;
+
+    public JwtFilter(JwtUtil jwtUtil,
+                     CustomUserDetailsService customUserDetailsService,
+                     TokenDenylist tokenDenylist,
+                     @Value("${jwt.stateless-principal:false}") boolean statelessPrincipal) {
+        this.jwtUtil = jwtUtil;
+        this.customUserDetailsService = customUserDetailsService;
+        this.tokenDenylist = tokenDenylist;
+        this.statelessPrincipal = statelessPrincipal;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -47,15 +59,28 @@ public class JwtFilter extends OncePerRequestFilter {
 
         try {
 
-            String username = jwtUtil.extractUsername(token);
+            Claims claims = jwtUtil.parseClaims(token);
+
+            // logged out or revoked by an admin; a Bloom filter miss for almost every token
+            if (tokenDenylist.isRevoked(claims.getId())) {
+                writeError(response, "Token Revoked");
+                return;
+            }
+
+            String username = claims.getSubject();
 
             if (username != null &&
                     SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                UserDetails userDetails =
-                        customUserDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = statelessPrincipal
+                        ? jwtUtil.principalFromClaims(claims)
+                        : null;
+
+                if (userDetails == null) {
+                    userDetails = customUserDetailsService.loadUserByUsername(username);
+                }
 
-                if (jwtUtil.validateToken(token, userDetails)) {
+                if (jwtUtil.validateToken(claims, userDetails)) {
 
                     UsernamePasswordAuthenticationToken authenticationToken =
                             new UsernamePasswordAuthenticationToken(
@@ -74,17 +99,22 @@ public class JwtFilter extends OncePerRequestFilter {
 
         } catch (Exception e) {
 
-            Map<String, String> responseMap = new HashMap<>();
-            responseMap.put("error", "Invalid Token");
-
-            ObjectMapper objectMapper = new ObjectMapper();
-            String jsonString = objectMapper.writeValueAsString(responseMap);
-
-            response.getWriter().write(jsonString);
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            writeError(response, "Invalid Token");
             return;
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private void writeError(HttpServletResponse response, String error) throws IOException {
+
+        Map<String, String> responseMap = new HashMap<>();
+        responseMap.put("error", error);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        String jsonString = objectMapper.writeValueAsString(responseMap);
+
+        response.getWriter().write(jsonString);
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    }
 }
@@ -1,7 +1,16 @@
 package org.example.demo2.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,50 +18,223 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    public static final String STUDENT_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String CREDENTIAL_VERSION_CLAIM = "ver";
 
-    @Value("${jwt.expiration}")
-    private long expiration;
+    private final String secret;
+    private final long expiration;
+    private final long cacheMaxSize;
+    private final CredentialVersionRegistry credentialVersions;
+    private final MeterRegistry meterRegistry;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private Timer issueTimer;
+    private Timer cachedParseTimer;
+    private Timer verifyTimer;
+    private Timer invalidTimer;
+
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    // already verified tokens, keyed by SHA-256 of the compact token, dropped at the token's exp
+    private Cache<String, Claims> verifiedTokens;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") long expiration,
+                   @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                   CredentialVersionRegistry credentialVersions,
+                   MeterRegistry meterRegistry) {
+        this.secret = secret;
+        this.expiration = expiration;
+        this.cacheMaxSize = cacheMaxSize;
+        this.credentialVersions = credentialVersions;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims,
+                                                  long currentTime, long currentDuration) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        issueTimer = Timer.builder("auth.jwt.issue")
+                .description("Signing a new token")
+                .register(meterRegistry);
+        cachedParseTimer = parseTimer("hit", "valid");
+        verifyTimer = parseTimer("miss", "valid");
+        invalidTimer = parseTimer("miss", "invalid");
+    }
+
+    private Timer parseTimer(String cache, String result) {
+        return Timer.builder("auth.jwt.parse")
+                .description("Token parsing; a cache miss pays for the full signature check")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     public String generateToken(UserDetails userDetails) {
 
-        log.info("Generating JWT token for user {}", userDetails.getUsername());
+        log.debug("Generating JWT token for user {}", userDetails.getUsername());
+
+        long start = System.nanoTime();
+
+        var builder = Jwts.builder();
 
-        return Jwts.builder()
+        if (userDetails instanceof StudentPrincipal principal) {
+            builder.claim(STUDENT_ID_CLAIM, principal.getId())
+                    .claim(ROLE_CLAIM, principal.getRole())
+                    .claim(CREDENTIAL_VERSION_CLAIM, principal.getCredentialVersion());
+        }
+
+        String token = builder
+                // jti, so this token alone can be revoked (TokenDenylist)
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
+
+        issueTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return token;
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
+        return validateToken(parseClaims(token), userDetails);
+    }
+
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
 
         log.debug("Validating token for user {}", userDetails.getUsername());
 
-        return extractUsername(token).equals(userDetails.getUsername());
+        if (!claims.getSubject().equals(userDetails.getUsername())) {
+            return false;
+        }
+
+        if (userDetails instanceof StudentPrincipal principal) {
+            Long version = claims.get(CREDENTIAL_VERSION_CLAIM, Long.class);
+            long tokenVersion = version == null ? 0 : version;
+
+            return tokenVersion == principal.getCredentialVersion()
+                    && credentialVersions.isCurrent(principal.getId(), tokenVersion);
+        }
+        return true;
+    }
+
+    /**
+     * Builds the principal from the token claims alone, without touching the
+     * database. Returns null for tokens issued before the claims were added.
+     */
+    public StudentPrincipal principalFromClaims(Claims claims) {
+
+        Long studentId = claims.get(STUDENT_ID_CLAIM, Long.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        Long version = claims.get(CREDENTIAL_VERSION_CLAIM, Long.class);
+
+        if (studentId == null || role == null || version == null) {
+            return null;
+        }
+        return new StudentPrincipal(studentId, claims.getSubject(), null, role, version);
     }
 
     public String extractUsername(String token){
 
         log.trace("Extracting username from token");
 
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return parseClaims(token).getSubject();
+    }
+
+    /**
+     * Verifies the token signature and expiry, or returns the claims of a
+     * token that was already verified and has not expired yet.
+     */
+    public Claims parseClaims(String token) {
+
+        long start = System.nanoTime();
+        String key = digest(token);
+
+        Claims claims = verifiedTokens.getIfPresent(key);
+        if (claims != null) {
+            cachedParseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        }
+
+        try {
+            claims = verify(token);
+        } catch (RuntimeException e) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        verifiedTokens.put(key, claims);
+        verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return claims;
+    }
+
+    // full signature and expiry check, bypassing the cache
+    Claims verify(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    public CacheStats tokenCacheStats() {
+        return verifiedTokens.stats();
+    }
+
+    public long tokenCacheSize() {
+        return verifiedTokens.estimatedSize();
+    }
+
+    private static long remainingNanos(Claims claims) {
+        Date exp = claims.getExpiration();
+        if (exp == null) {
+            return 0;
+        }
+        long remainingMillis = exp.getTime() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
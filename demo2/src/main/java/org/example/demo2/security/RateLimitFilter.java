@@ -0,0 +1,302 @@
+package org.example.demo2.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the public endpoints that cost a password hash (login, sign-up)
+ * or a token rotation, per client IP and per username, before the security
+ * chain does any hashing or database work. Over the limit the request gets
+ * 429 with Retry-After.
+ *
+ * The client IP is the remote address. Behind a reverse proxy, set
+ * server.forward-headers-strategy so it is the real client, not the proxy.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // only this much of the body is buffered to find the username; larger bodies are limited per IP only
+    private static final int MAX_INSPECTED_BODY = 8 * 1024;
+    private static final int MAX_USERNAME_KEY = 128;
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    // one per body format the controllers accept (see WebConfig)
+    private final ObjectMapper jsonMapper = new JsonMapper();
+    private final ObjectMapper cborMapper = new CBORMapper();
+    private final ObjectMapper smileMapper = new SmileMapper();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.ip.per-minute:60}")
+    private int ipPerMinute;
+
+    @Value("${rate-limit.ip.burst:20}")
+    private int ipBurst;
+
+    @Value("${rate-limit.username.per-minute:10}")
+    private int usernamePerMinute;
+
+    @Value("${rate-limit.username.burst:5}")
+    private int usernameBurst;
+
+    // per limiter; an entry is a key plus one AtomicLong
+    @Value("${rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    private RateLimiter byIp;
+    private RateLimiter byUsername;
+
+    private Counter ipRejected;
+    private Counter usernameRejected;
+
+    @PostConstruct
+    void init() {
+        byIp = new RateLimiter(ipPerMinute, ipBurst, maxKeys);
+        byUsername = new RateLimiter(usernamePerMinute, usernameBurst, maxKeys);
+
+        ipRejected = rejectedCounter("ip");
+        usernameRejected = rejectedCounter("username");
+    }
+
+    private Counter rejectedCounter(String limit) {
+        return Counter.builder("auth.rate-limit.rejected")
+                .description("Requests refused with 429")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return !(path.equals("/auth/login") || path.equals("/auth/refresh") || path.equals("/students"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long wait = byIp.tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            ipRejected.increment();
+            tooManyRequests(response, wait);
+            return;
+        }
+
+        // refresh tokens carry no username, the token itself is unguessable
+        if (!request.getServletPath().equals("/auth/refresh")) {
+            BufferedBodyRequest buffered = new BufferedBodyRequest(request);
+            String username = buffered.username();
+
+            if (username != null) {
+                wait = byUsername.tryAcquire(username);
+                if (wait > 0) {
+                    usernameRejected.increment();
+                    log.warn("Rate limit hit for username {}", username);
+                    tooManyRequests(response, wait);
+                    return;
+                }
+            }
+            request = buffered;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // idle keys have a full bucket again, dropping them loses nothing
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval:1m}")
+    public void evictIdle() {
+        int evicted = byIp.evictIdle() + byUsername.evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit keys", evicted);
+        }
+    }
+
+    private void tooManyRequests(HttpServletResponse response, long waitNanos) throws IOException {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(jsonMapper.writeValueAsString(Map.of("error", "Too Many Requests")));
+    }
+
+    /**
+     * Reads the start of the body once to find the "username" field, then
+     * replays it to the controller, followed by whatever was not read.
+     */
+    private final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] head;
+        private final boolean complete;
+        private final ByteArrayInputStream replay;
+        // the rest of the body, still unread; null when head is all of it
+        private final ServletInputStream rest;
+        private final ServletInputStream body;
+
+        BufferedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            ServletInputStream in = request.getInputStream();
+            this.head = in.readNBytes(MAX_INSPECTED_BODY);
+            this.complete = head.length < MAX_INSPECTED_BODY;
+            this.replay = new ByteArrayInputStream(head);
+            this.rest = complete ? null : in;
+            this.body = new ReplayingInputStream();
+        }
+
+        String username() {
+            if (!complete || head.length == 0) {
+                return null;
+            }
+            try {
+                Object username = mapperFor(getContentType()).readValue(head, Map.class).get("username");
+                if (!(username instanceof String value) || value.isBlank()) {
+                    return null;
+                }
+                return value.length() > MAX_USERNAME_KEY ? value.substring(0, MAX_USERNAME_KEY) : value;
+            } catch (JacksonException | IllegalArgumentException e) {
+                // malformed body is rejected by the controller, only the IP limit applies
+                return null;
+            }
+        }
+
+        private ObjectMapper mapperFor(String contentType) {
+            if (contentType != null) {
+                MediaType type = MediaType.parseMediaType(contentType);
+                if (MediaType.APPLICATION_CBOR.isCompatibleWith(type)) {
+                    return cborMapper;
+                }
+                if (SMILE.isCompatibleWith(type)) {
+                    return smileMapper;
+                }
+            }
+            return jsonMapper;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        private final class ReplayingInputStream extends ServletInputStream {
+
+            @Override
+            public int read() throws IOException {
+                int b = replay.read();
+                return b != -1 || rest == null ? b : rest.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (replay.available() > 0) {
+                    return replay.read(b, off, len);
+                }
+                return rest == null ? -1 : rest.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return replay.available() == 0 && (rest == null || rest.isFinished());
+            }
+
+            @Override
+            public boolean isReady() {
+                return replay.available() > 0 || rest == null || rest.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                if (rest != null) {
+                    rest.setReadListener(new ReplayFirstListener(listener));
+                    return;
+                }
+                // the whole body is in memory: it can all be read right away
+                try {
+                    listener.onDataAvailable();
+                    listener.onAllDataRead();
+                } catch (IOException | RuntimeException e) {
+                    listener.onError(e);
+                }
+            }
+        }
+
+        // a body that ends right after the buffered part can be finished before the listener read any of it
+        private final class ReplayFirstListener implements ReadListener {
+
+            private final ReadListener delegate;
+
+            ReplayFirstListener(ReadListener delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void onDataAvailable() throws IOException {
+                delegate.onDataAvailable();
+            }
+
+            @Override
+            public void onAllDataRead() throws IOException {
+                if (replay.available() > 0) {
+                    delegate.onDataAvailable();
+                }
+                delegate.onAllDataRead();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                delegate.onError(t);
+            }
+        }
+    }
+}
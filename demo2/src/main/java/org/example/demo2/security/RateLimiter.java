@@ -0,0 +1,92 @@
+package org.example.demo2.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per key, kept as a single "theoretical arrival time" (GCRA):
+ * a request is allowed when the bucket's TAT is at most burst * interval ahead
+ * of now, and then moves it one interval further. Each key is one AtomicLong
+ * updated by CAS, so concurrent requests never lock; the map itself is
+ * lock-striped.
+ *
+ * A key whose TAT is in the past has a full bucket, which is the same as not
+ * being in the map at all, so idle keys can be dropped without losing state.
+ * Once maxKeys is reached, new keys share one overflow bucket until a sweep
+ * frees room: memory stays bounded even when every request uses a fresh key.
+ */
+public class RateLimiter {
+
+    private static final String OVERFLOW_KEY = "";
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param permitsPerMinute sustained rate
+     * @param burst            requests allowed at once on a full bucket
+     * @param maxKeys          tracked keys before new keys share the overflow bucket
+     */
+    public RateLimiter(int permitsPerMinute, int burst, int maxKeys) {
+        if (permitsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerMinute and burst must be positive");
+        }
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+        this.toleranceNanos = intervalNanos * burst;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes one permit for the key.
+     *
+     * @return 0 if the request is allowed, otherwise the nanos until it would be
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long now) {
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            if (buckets.size() >= maxKeys) {
+                key = OVERFLOW_KEY;
+            }
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long current = tat.get();
+            // compared by difference, nanoTime values may wrap
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long wait = next - toleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops the keys whose bucket has refilled. A request racing with the
+     * removal may update the dropped counter and get one extra permit at most.
+     */
+    public int evictIdle() {
+        return evictIdle(System.nanoTime());
+    }
+
+    int evictIdle(long now) {
+        int before = buckets.size();
+        buckets.values().removeIf(tat -> tat.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
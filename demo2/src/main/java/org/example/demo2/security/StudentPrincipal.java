@@ -0,0 +1,45 @@
+package org.example.demo2.security;
+
+import lombok.Getter;
+import org.example.demo2.entities.Student;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Authenticated student as seen by the security layer. Built either from the
+ * Student row (login, DB-backed JWT mode) or straight from the JWT claims.
+ */
+@Getter
+public class StudentPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final String role;
+    private final long credentialVersion;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    public StudentPrincipal(Long id, String username, String password,
+                            String role, long credentialVersion) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.role = role;
+        this.credentialVersion = credentialVersion;
+        this.authorities = Collections.singleton(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    public static StudentPrincipal from(Student student) {
+        return new StudentPrincipal(
+                student.getId(),
+                student.getUsername(),
+                student.getPassword(),
+                student.getRole(),
+                student.getCredentialVersion() == null ? 0 : student.getCredentialVersion()
+        );
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.demo2.security;
+
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token ids (jti) revoked before their expiry. A Bloom filter answers most
+ * lookups, since most tokens are not revoked, without allocating anything.
+ * Only a possible hit goes on to the exact map of jti to expiry time. Entries
+ * are dropped once their token would have expired anyway, and the Bloom filter
+ * is then rebuilt from the remaining ones.
+ *
+ * Every revocation is appended to a local file ("jti expiryMillis" per line)
+ * and replayed on startup. The file is rewritten without expired lines on
+ * startup and when it has grown well past the live set.
+ */
+@Slf4j
+@Component
+public class TokenDenylist {
+
+    private final Path file;
+    private final int expectedEntries;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+
+    private BufferedWriter writer;
+    private long appendedLines;
+
+    public TokenDenylist(@Value("${jwt.denylist.file:data/revoked-tokens.log}") Path file,
+                         @Value("${jwt.denylist.expected-entries:100000}") int expectedEntries) {
+        this.file = file;
+        this.expectedEntries = expectedEntries;
+        this.bloom = new BloomFilter(expectedEntries);
+    }
+
+    @PostConstruct
+    void load() throws IOException {
+        long now = System.currentTimeMillis();
+
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int space = line.indexOf(' ');
+                if (space <= 0) {
+                    continue;
+                }
+                try {
+                    long expiresAt = Long.parseLong(line.substring(space + 1).trim());
+                    if (expiresAt > now) {
+                        revoked.put(line.substring(0, space), expiresAt);
+                    }
+                } catch (NumberFormatException e) {
+                    // torn last line after a crash
+                    log.warn("Skipping malformed denylist line");
+                }
+            }
+        }
+
+        rebuildBloom();
+        compact();
+
+        log.info("Token denylist loaded with {} revoked tokens", revoked.size());
+    }
+
+    /**
+     * Revokes a token until its expiry. Tokens without an id (issued before ids
+     * were added) or already expired are ignored.
+     */
+    public void revoke(String tokenId, long expiresAtMillis) {
+        if (tokenId == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        if (revoked.put(tokenId, expiresAtMillis) == null) {
+            bloom.add(tokenId);
+            append(tokenId, expiresAtMillis);
+        }
+    }
+
+    public void revoke(Claims claims) {
+        revoke(claims.getId(), claims.getExpiration().getTime());
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloom.mightContain(tokenId)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.denylist.purge-interval:1m}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (!revoked.values().removeIf(expiresAt -> expiresAt <= now)) {
+            return;
+        }
+
+        rebuildBloom();
+
+        synchronized (this) {
+            if (appendedLines > 2L * revoked.size() + 1000) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    log.warn("Could not compact the token denylist file", e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private synchronized void append(String tokenId, long expiresAtMillis) {
+        try {
+            writer.write(tokenId + ' ' + expiresAtMillis);
+            writer.newLine();
+            // flushed per entry: a revocation must survive a restart of the process
+            writer.flush();
+            appendedLines++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not persist token revocation", e);
+        }
+    }
+
+    // rewrites the file with the live entries only, then keeps appending to it
+    private synchronized void compact() throws IOException {
+        close();
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        List<String> lines = revoked.entrySet().stream()
+                .map(entry -> entry.getKey() + ' ' + entry.getValue())
+                .toList();
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        appendedLines = lines.size();
+    }
+
+    private void rebuildBloom() {
+        BloomFilter fresh = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2));
+        revoked.keySet().forEach(fresh::add);
+        bloom = fresh;
+        // a revoke() racing with the swap may have gone into the old filter only
+        revoked.keySet().forEach(fresh::add);
+    }
+
+    /**
+     * Lock-free Bloom filter over token ids, about 1% false positives at the
+     * expected number of entries. Positions come from double hashing two int
+     * hashes of the id, so a lookup allocates nothing.
+     */
+    static final class BloomFilter {
+
+        private static final int HASHES = 7;
+
+        private final AtomicLongArray words;
+        private final int bits;
+
+        BloomFilter(int expectedEntries) {
+            // ~9.6 bits per entry for a 1% false positive rate
+            long wanted = Math.max(64, (long) expectedEntries * 10);
+            this.bits = (int) Math.min(wanted, Integer.MAX_VALUE - 63);
+            this.words = new AtomicLongArray((bits + 63) / 64);
+        }
+
+        void add(String key) {
+            int h1 = key.hashCode();
+            int h2 = secondHash(key);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            int h1 = key.hashCode();
+            int h2 = secondHash(key);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a, independent of String.hashCode(); odd so every step moves
+        private static int secondHash(String key) {
+            int h = 0x811c9dc5;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x01000193;
+            }
+            return h | 1;
+        }
+    }
+}
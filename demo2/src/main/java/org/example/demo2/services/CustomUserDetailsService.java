@@ -1,28 +1,172 @@
 package org.example.demo2.services;
 
-import org.example.demo2.entities.Student;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.demo2.datasource.ReadYourWritesTracker;
 import org.example.demo2.repositories.StudentRepository;
+import org.example.demo2.security.StudentPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Component
 @Service
-public  class CustomUserDetailsService implements UserDetailsService {
+public  class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     private StudentRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWrites;
+
+    @Value("${cache.users.max-size:10000}")
+    private long maxSize;
+
+    @Value("${cache.users.ttl:5m}")
+    private Duration ttl;
+
+    // username -> principal; size-bounded (W-TinyLFU) with a TTL, invalidated by StudentService on writes.
+    // Values are futures so a lookup in flight is visible to evict(), see loadPrincipal.
+    private AsyncCache<String, StudentPrincipal> principals;
+
+    private Timer cacheLookups;
+    private Timer databaseLookups;
+    private Timer missingLookups;
+
+    @PostConstruct
+    void init() {
+        principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+
+        cacheLookups = lookupTimer("cache");
+        databaseLookups = lookupTimer("database");
+        missingLookups = lookupTimer("missing");
+    }
+
+    private Timer lookupTimer(String source) {
+        return Timer.builder("auth.user.lookup")
+                .description("Principal lookup by username")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        //fetch user from database
-        Student user= userRepository.findByUsername(username).
-                orElseThrow( ()->new UsernameNotFoundException("user Not Found!"));
-        return new User(user.getUsername(),user.getPassword(), Collections.singleton(new SimpleGrantedAuthority("ROLE_"+user.getRole())));
+        return loadPrincipal(username);
+    }
+
+    public StudentPrincipal loadPrincipal(String username) throws UsernameNotFoundException {
+        long start = System.nanoTime();
+
+        //fetch user from cache, falling back to the database
+        CompletableFuture<StudentPrincipal> cached = principals.getIfPresent(username);
+        if (cached == null) {
+            // the future is published before the query, so an evict() while it runs drops it
+            // and a stale row is never cached; the query itself runs on this thread, outside
+            // Cache.get(key, loader)'s bin lock, which would pin a virtual thread
+            CompletableFuture<StudentPrincipal> loading = new CompletableFuture<>();
+            cached = principals.asMap().putIfAbsent(username, loading);
+            if (cached == null) {
+                return load(username, loading, start);
+            }
+        }
+
+        StudentPrincipal principal = join(cached);
+        if (principal == null) {
+            missingLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw new UsernameNotFoundException("user Not Found!");
+        }
+
+        cacheLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return principal;
+    }
+
+    private StudentPrincipal load(String username, CompletableFuture<StudentPrincipal> loading, long start) {
+        StudentPrincipal principal;
+        try {
+            // made for this username, so it stays on the primary right after the student's own write
+            principal = readYourWrites.readAs(username, () -> userRepository.findByUsername(username))
+                    .map(StudentPrincipal::from)
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            // a failed future is removed from the cache
+            loading.completeExceptionally(e);
+            throw e;
+        }
+
+        // completing with null removes the entry, unknown usernames are not cached
+        loading.complete(principal);
+
+        if (principal == null) {
+            missingLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw new UsernameNotFoundException("user Not Found!");
+        }
+
+        databaseLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return principal;
+    }
+
+    // waits for a lookup another request started for the same username
+    private static StudentPrincipal join(CompletableFuture<StudentPrincipal> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Called by DaoAuthenticationProvider after a successful login when the stored
+     * hash uses an outdated algorithm or cost.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+
+        log.info("Upgrading password encoding for user {}", user.getUsername());
+
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        readYourWrites.recordWrite(user.getUsername());
+        evict(user.getUsername());
+
+        StudentPrincipal principal = (StudentPrincipal) user;
+        return new StudentPrincipal(principal.getId(), principal.getUsername(), newPassword,
+                principal.getRole(), principal.getCredentialVersion());
+    }
+
+    // also drops a lookup still in flight, its result is then returned but not cached
+    public void evict(String username) {
+        principals.synchronous().invalidate(username);
+    }
+
+    public CacheStats cacheStats() {
+        return principals.synchronous().stats();
+    }
 
+    public long cacheSize() {
+        return principals.synchronous().estimatedSize();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+package org.example.demo2.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.demo2.entities.RefreshToken;
+import org.example.demo2.exceptions.InvalidTokenException;
+import org.example.demo2.model.AuthTokens;
+import org.example.demo2.repositories.RefreshTokenRepository;
+import org.example.demo2.security.CredentialVersionRegistry;
+import org.example.demo2.security.JwtUtil;
+import org.example.demo2.security.StudentPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens. A refresh is a primary key lookup and a conditional
+ * UPDATE instead of a BCrypt check, so clients can keep short-lived access
+ * tokens without going back through the login.
+ *
+ * Each token is single use. Presenting one that was already exchanged means two
+ * parties hold it; the whole family (every token descending from the same
+ * login) is then revoked and the owner has to log in again.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final CustomUserDetailsService userDetailsService;
+    private final CredentialVersionRegistry credentialVersions;
+    private final JwtUtil jwtUtil;
+    private final Duration expiration;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Counter rotated;
+    private final Counter reused;
+    private final Counter rejected;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               CustomUserDetailsService userDetailsService,
+                               CredentialVersionRegistry credentialVersions,
+                               JwtUtil jwtUtil,
+                               MeterRegistry meterRegistry,
+                               @Value("${jwt.refresh.expiration:14d}") Duration expiration) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userDetailsService = userDetailsService;
+        this.credentialVersions = credentialVersions;
+        this.jwtUtil = jwtUtil;
+        this.expiration = expiration;
+
+        this.rotated = refreshCounter(meterRegistry, "rotated");
+        this.reused = refreshCounter(meterRegistry, "reused");
+        this.rejected = refreshCounter(meterRegistry, "rejected");
+    }
+
+    private static Counter refreshCounter(MeterRegistry registry, String result) {
+        return Counter.builder("auth.refresh")
+                .description("Refresh token exchanges")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Starts a new token family for a fresh login and returns its first token.
+     */
+    @Transactional
+    public String issue(StudentPrincipal principal) {
+        return store(principal, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh
+     * token of the same family. Revocations made while rejecting a token are
+     * committed even though the exception propagates.
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public AuthTokens refresh(String refreshToken) {
+
+        String tokenHash = hash(refreshToken);
+
+        RefreshToken current = refreshTokenRepository.findById(tokenHash)
+                .orElseThrow(() -> reject("Unknown refresh token"));
+
+        if (current.isRevoked() || !current.getExpiresAt().isAfter(LocalDateTime.now())) {
+            throw reject("Refresh token expired or revoked");
+        }
+
+        if (current.getUsedAt() != null
+                || refreshTokenRepository.markUsed(tokenHash, LocalDateTime.now()) == 0) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            reused.increment();
+            log.warn("Refresh token reuse for user {}, token family {} revoked",
+                    current.getUsername(), current.getFamilyId());
+            throw new InvalidTokenException("Refresh token already used");
+        }
+
+        StudentPrincipal principal;
+        try {
+            principal = userDetailsService.loadPrincipal(current.getUsername());
+        } catch (UsernameNotFoundException e) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            throw reject("Student no longer exists");
+        }
+
+        // a different id means the username now belongs to someone else
+        if (!principal.getId().equals(current.getStudentId())
+                || principal.getCredentialVersion() != current.getCredentialVersion()
+                || !credentialVersions.isCurrent(principal.getId(), current.getCredentialVersion())) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            throw reject("Credentials changed since login");
+        }
+
+        String next = store(principal, current.getFamilyId());
+        rotated.increment();
+
+        return new AuthTokens(jwtUtil.generateToken(principal), next);
+    }
+
+    /**
+     * Ends the login session the token belongs to. Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findById(hash(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    // used tokens are kept until they expire, so a late replay is still detected
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval:1h}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String store(StudentPrincipal principal, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken entity = new RefreshToken();
+        entity.setTokenHash(hash(token));
+        entity.setFamilyId(familyId);
+        entity.setStudentId(principal.getId());
+        entity.setUsername(principal.getUsername());
+        entity.setCredentialVersion(principal.getCredentialVersion());
+        entity.setExpiresAt(LocalDateTime.now().plus(expiration));
+        refreshTokenRepository.save(entity);
+
+        return token;
+    }
+
+    private InvalidTokenException reject(String message) {
+        rejected.increment();
+        return new InvalidTokenException(message);
+    }
+
+    // a plain digest is enough: the token is 256 random bits, not a password
+    private static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
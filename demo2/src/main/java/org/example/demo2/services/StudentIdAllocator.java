@@ -0,0 +1,107 @@
+package org.example.demo2.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.demo2.entities.IdSequence;
+import org.example.demo2.repositories.IdSequenceRepository;
+import org.example.demo2.repositories.StudentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out Student ids from blocks reserved in the id_sequence table
+ * (one locked read + one update per block), so a new Student knows its id
+ * before it is inserted.
+ */
+@Slf4j
+@Component
+public class StudentIdAllocator {
+
+    private static final String SEQUENCE_NAME = "student";
+
+    private final IdSequenceRepository idSequenceRepository;
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate newTransaction;
+
+    @Value("${students.id.allocation-size:50}")
+    private int allocationSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // ids in [next, limit) are reserved for this instance
+    private long next;
+    private long limit;
+
+    public StudentIdAllocator(IdSequenceRepository idSequenceRepository,
+                              StudentRepository studentRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.idSequenceRepository = idSequenceRepository;
+        this.studentRepository = studentRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next >= limit) {
+                reserveBlock(allocationSize);
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<Long> nextIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        lock.lock();
+        try {
+            while (ids.size() < count) {
+                if (next >= limit) {
+                    reserveBlock(Math.max(allocationSize, count - ids.size()));
+                }
+                ids.add(next++);
+            }
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reserveBlock(int size) {
+        Long start;
+        try {
+            start = newTransaction.execute(status -> reserve(size));
+        } catch (DataIntegrityViolationException e) {
+            // another instance created the sequence row first; it exists now
+            start = newTransaction.execute(status -> reserve(size));
+        }
+        next = start;
+        limit = start + size;
+    }
+
+    private long reserve(int size) {
+        IdSequence sequence = idSequenceRepository.findForUpdate(SEQUENCE_NAME)
+                .orElseGet(() -> {
+                    // first start: continue after ids created by the old IDENTITY column
+                    long start = studentRepository.findMaxId() + 1;
+                    log.info("Initialising student id sequence at {}", start);
+                    return new IdSequence(SEQUENCE_NAME, start);
+                });
+
+        long start = sequence.getNextVal();
+
+        sequence.setNextVal(start + size);
+        idSequenceRepository.saveAndFlush(sequence);
+
+        return start;
+    }
+}
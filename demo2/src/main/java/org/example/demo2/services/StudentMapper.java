@@ -0,0 +1,79 @@
+package org.example.demo2.services;
+
+import org.example.demo2.entities.Student;
+import org.example.demo2.model.StudentDTO;
+import org.example.demo2.model.StudentView;
+
+/**
+ * Conversions between the Student entity, its read projection and the API
+ * DTO. Stateless, so StudentService and the mapping benchmarks call it directly.
+ */
+final class StudentMapper {
+
+    private StudentMapper() {
+    }
+
+    static Student toEntity(StudentDTO dto) {
+        Student student = new Student();
+        student.setId(dto.getId());
+        student.setUsername(dto.getUsername());
+        setName(student, dto.getFirstName(), dto.getLastName());
+        student.setEmail(dto.getEmail());
+        student.setRole(dto.getRole());
+        student.setPassword(dto.getPassword()); // encoded later
+        return student;
+    }
+
+    static StudentDTO toDto(Student student) {
+        StudentDTO dto = new StudentDTO();
+        dto.setId(student.getId());
+        dto.setUsername(student.getUsername());
+
+        if (student.getFirstName() != null) {
+            dto.setFirstName(student.getFirstName());
+            dto.setLastName(student.getLastName());
+        } else {
+            // not yet backfilled by StudentNameBackfill
+            String[] parts = StudentView.splitName(student.getName());
+            dto.setFirstName(parts[0]);
+            dto.setLastName(parts[1]);
+        }
+
+        dto.setEmail(student.getEmail());
+        dto.setRole(student.getRole());
+        dto.setCreatedBy(student.getCreatedBy());
+        dto.setModifiedBy(student.getModifiedBy());
+        return dto;
+    }
+
+    static StudentView toView(Student student) {
+        String firstName = student.getFirstName();
+        String lastName = student.getLastName();
+        if (firstName == null) {
+            String[] parts = StudentView.splitName(student.getName());
+            firstName = parts[0];
+            lastName = parts[1];
+        }
+        return new StudentView(student.getId(), firstName, lastName, student.getEmail(),
+                student.getUsername(), student.getRole(), student.getCreatedBy(), student.getModifiedBy());
+    }
+
+    static StudentDTO toDto(StudentView view) {
+        StudentDTO dto = new StudentDTO();
+        dto.setId(view.id());
+        dto.setUsername(view.username());
+        dto.setFirstName(view.firstName());
+        dto.setLastName(view.lastName());
+        dto.setEmail(view.email());
+        dto.setRole(view.role());
+        dto.setCreatedBy(view.createdBy());
+        dto.setModifiedBy(view.modifiedBy());
+        return dto;
+    }
+
+    static void setName(Student student, String firstName, String lastName) {
+        student.setFirstName(firstName);
+        student.setLastName(lastName);
+        student.setName(firstName + " " + lastName);
+    }
+}
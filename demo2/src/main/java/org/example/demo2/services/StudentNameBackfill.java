@@ -0,0 +1,54 @@
+package org.example.demo2.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.demo2.repositories.StudentRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills firstName/lastName for rows created before those columns existed, in
+ * small batches after startup. Until a row is reached, the read projections
+ * split its combined name themselves (see StudentView).
+ *
+ * Each batch is a bulk UPDATE rather than dirty checking of loaded entities:
+ * @PreUpdate is not run, so modifiedAt and every ETag derived from it stay the same.
+ */
+@Slf4j
+@Component
+public class StudentNameBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final StudentRepository studentRepository;
+
+    public StudentNameBackfill(StudentRepository studentRepository) {
+        this.studentRepository = studentRepository;
+    }
+
+    // before StudentSearchIndex.build(), so the index sees the split names
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfill() {
+
+        long updated = 0;
+        List<Long> ids;
+
+        do {
+            ids = studentRepository.findIdsWithoutFirstName(Limit.of(BATCH_SIZE));
+            // rows without any name get an empty first name so they are not picked up again
+            if (!ids.isEmpty()) {
+                updated += studentRepository.backfillNames(ids);
+            }
+        } while (ids.size() == BATCH_SIZE);
+
+        if (updated > 0) {
+            log.info("Backfilled first/last name for {} students", updated);
+        }
+    }
+}
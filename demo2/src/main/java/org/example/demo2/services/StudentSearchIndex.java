@@ -0,0 +1,442 @@
+package org.example.demo2.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.demo2.model.StudentView;
+import org.example.demo2.repositories.StudentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search over username, email and full name.
+ *
+ * Every indexed value contributes its trigrams, and every word in it contributes
+ * its one- and two-character prefixes. A query of three or more characters takes
+ * the shortest posting list among its trigrams and checks each candidate with
+ * contains(). A shorter query looks up the word-prefix list. Either way only a
+ * small candidate set is scanned, never the whole table.
+ *
+ * Students are stored in numbered slots and posting lists hold slot numbers.
+ * Removing or replacing a student empties its slot. When more than half the
+ * slots are empty, the posting lists are rebuilt. If the estimated size goes
+ * over the memory budget, the index turns itself off and {@link #isReady()} is
+ * false, so callers fall back to the database; it is rebuilt from the table
+ * every students.search.rebuild-interval until it fits again.
+ */
+@Slf4j
+@Component
+public class StudentSearchIndex {
+
+    public static final int MAX_QUERY_LENGTH = 100;
+
+    private static final int GRAM = 3;
+    private static final int BUILD_PAGE_SIZE = 1000;
+    private static final char PREFIX_MARK = '^';
+
+    // rough per-object costs used for the memory estimate
+    private static final long ENTRY_OVERHEAD = 160;
+    private static final long KEY_OVERHEAD = 96;
+    private static final long POSTING_BYTES = 6;
+
+    private final StudentRepository studentRepository;
+    private final long memoryBudget;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // all fields below are guarded by lock
+    private Entry[] slots = new Entry[1024];
+    // postings added for the entry in the same slot, so removal can take them off the estimate
+    private int[] slotPostings = new int[1024];
+    private int slotCount;
+    private int live;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+    private long estimatedBytes;
+    private boolean overBudget;
+    private boolean building;
+    private final Set<Long> removedWhileBuilding = new HashSet<>();
+
+    private volatile boolean ready;
+
+    public StudentSearchIndex(StudentRepository studentRepository,
+                              @Value("${students.search.memory-budget:256MB}") DataSize memoryBudget) {
+        this.studentRepository = studentRepository;
+        this.memoryBudget = memoryBudget.toBytes();
+    }
+
+    /** One matching student, ranked by score (higher first). */
+    public record Hit(StudentView student, int score) {
+    }
+
+    private record Entry(StudentView view, String username, String email, String fullName) {
+
+        static Entry of(StudentView view) {
+            String first = view.firstName() == null ? "" : view.firstName();
+            String last = view.lastName() == null ? "" : view.lastName();
+            return new Entry(view,
+                    lower(view.username()),
+                    lower(view.email()),
+                    lower((first + " " + last).trim()));
+        }
+
+        long estimatedBytes() {
+            // the view's strings plus the lower-cased copies, two bytes per char at worst
+            return ENTRY_OVERHEAD + 4L * (username.length() + email.length() + fullName.length());
+        }
+    }
+
+    /**
+     * Loads every student page by page after startup. Writes that happen in the
+     * meantime are applied directly and take precedence over the loaded rows.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+
+        lock.writeLock().lock();
+        try {
+            building = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        load();
+    }
+
+    /**
+     * Tries again after the index was disabled: students deleted since may have
+     * brought it back under the budget. Still too large, it disables itself again.
+     */
+    @Scheduled(initialDelayString = "${students.search.rebuild-interval:15m}",
+            fixedDelayString = "${students.search.rebuild-interval:15m}")
+    public void rebuildIfDisabled() {
+
+        lock.writeLock().lock();
+        try {
+            if (!overBudget || building) {
+                return;
+            }
+            overBudget = false;
+            slots = new Entry[1024];
+            slotPostings = new int[1024];
+            building = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Rebuilding the disabled search index");
+        load();
+    }
+
+    private void load() {
+
+        long started = System.nanoTime();
+        long after = 0;
+        List<StudentView> page;
+
+        do {
+            page = studentRepository.findViewsAfter(after, Limit.of(BUILD_PAGE_SIZE));
+
+            lock.writeLock().lock();
+            try {
+                if (overBudget) {
+                    break;
+                }
+                for (StudentView view : page) {
+                    if (!slotById.containsKey(view.id()) && !removedWhileBuilding.contains(view.id())) {
+                        add(view);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == BUILD_PAGE_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            building = false;
+            removedWhileBuilding.clear();
+            ready = !overBudget;
+
+            if (ready) {
+                log.info("Search index built for {} students in {} ms, ~{} KB",
+                        live, (System.nanoTime() - started) / 1_000_000, estimatedBytes / 1024);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Adds or replaces a student. */
+    public void put(StudentView view) {
+        lock.writeLock().lock();
+        try {
+            if (overBudget) {
+                return;
+            }
+            removeSlot(view.id());
+            add(view);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                removedWhileBuilding.add(id);
+            }
+            removeSlot(id);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Best matches for the query, at most limit of them. Case-insensitive; a query
+     * shorter than three characters matches word prefixes only.
+     */
+    public List<Hit> search(String query, int limit) {
+
+        String q = lower(query).trim();
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // min-heap of the best hits so far
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+
+        lock.readLock().lock();
+        try {
+            IntList candidates = candidates(q);
+            if (candidates == null) {
+                return List.of();
+            }
+
+            for (int i = 0; i < candidates.size; i++) {
+                Entry entry = slots[candidates.data[i]];
+                if (entry == null) {
+                    continue;
+                }
+                int score = score(entry, q);
+                if (score > 0) {
+                    best.add(new Hit(entry.view(), score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    // higher score first, then the shorter (closer) username, then the older student
+    private static final Comparator<Hit> RANKING = Comparator
+            .comparingInt(Hit::score).reversed()
+            .thenComparingInt((Hit hit) -> hit.student().username().length())
+            .thenComparing(hit -> hit.student().id());
+
+    private IntList candidates(String q) {
+        if (q.length() < GRAM) {
+            return postings.get(PREFIX_MARK + q);
+        }
+
+        IntList shortest = null;
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            IntList list = postings.get(q.substring(i, i + GRAM));
+            if (list == null) {
+                // some trigram of the query occurs nowhere
+                return null;
+            }
+            if (shortest == null || list.size < shortest.size) {
+                shortest = list;
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * 0 when the entry does not match. Exact matches rank above prefixes, prefixes
+     * above word prefixes, and those above plain substrings; username is weighted
+     * over name, and name over email.
+     */
+    private static int score(Entry entry, String q) {
+        return Math.max(score(entry.username(), q, 3),
+                Math.max(score(entry.fullName(), q, 2), score(entry.email(), q, 1)));
+    }
+
+    private static int score(String value, String q, int fieldWeight) {
+        int position = value.indexOf(q);
+        if (position < 0) {
+            return 0;
+        }
+        int match;
+        if (position == 0) {
+            match = value.length() == q.length() ? 400 : 300;
+        } else if (!Character.isLetterOrDigit(value.charAt(position - 1))) {
+            match = 200;
+        } else if (q.length() >= GRAM) {
+            match = 100;
+        } else {
+            // a short query only counts at a word start
+            match = isWordStart(value, q) ? 200 : 0;
+        }
+        return match == 0 ? 0 : match + fieldWeight;
+    }
+
+    private static boolean isWordStart(String value, String q) {
+        for (int i = value.indexOf(q); i > 0; i = value.indexOf(q, i + 1)) {
+            if (!Character.isLetterOrDigit(value.charAt(i - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(StudentView view) {
+        Entry entry = Entry.of(view);
+
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slotCount * 2);
+            slotPostings = Arrays.copyOf(slotPostings, slotCount * 2);
+        }
+        int slot = slotCount++;
+        slots[slot] = entry;
+        slotById.put(view.id(), slot);
+        live++;
+        estimatedBytes += entry.estimatedBytes();
+
+        slotPostings[slot] = index(entry, slot);
+
+        if (estimatedBytes > memoryBudget) {
+            disable();
+        }
+    }
+
+    // returns the number of postings added
+    private int index(Entry entry, int slot) {
+        Set<String> keys = new HashSet<>();
+        for (String value : new String[] {entry.username(), entry.email(), entry.fullName()}) {
+            for (int i = 0; i + GRAM <= value.length(); i++) {
+                keys.add(value.substring(i, i + GRAM));
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (i == 0 || !Character.isLetterOrDigit(value.charAt(i - 1))) {
+                    keys.add(PREFIX_MARK + value.substring(i, i + 1));
+                    if (i + 2 <= value.length()) {
+                        keys.add(PREFIX_MARK + value.substring(i, i + 2));
+                    }
+                }
+            }
+        }
+        for (String key : keys) {
+            IntList list = postings.get(key);
+            if (list == null) {
+                list = new IntList();
+                postings.put(key, list);
+                estimatedBytes += KEY_OVERHEAD + 2L * key.length();
+            }
+            list.add(slot);
+            estimatedBytes += POSTING_BYTES;
+        }
+        return keys.size();
+    }
+
+    private void removeSlot(Long id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            // the postings stay in their lists until compactIfSparse, which bounds them by the live ones
+            estimatedBytes -= slots[slot].estimatedBytes() + POSTING_BYTES * slotPostings[slot];
+            slots[slot] = null;
+            live--;
+        }
+    }
+
+    // posting lists keep pointing at emptied slots until they are rebuilt here
+    private void compactIfSparse() {
+        int empty = slotCount - live;
+        if (empty < 1024 || empty < live) {
+            return;
+        }
+
+        Entry[] old = slots;
+        int oldCount = slotCount;
+
+        slots = new Entry[Math.max(1024, live * 2)];
+        slotPostings = new int[slots.length];
+        slotCount = 0;
+        live = 0;
+        slotById.clear();
+        postings.clear();
+        estimatedBytes = 0;
+
+        for (int i = 0; i < oldCount && !overBudget; i++) {
+            if (old[i] != null) {
+                add(old[i].view());
+            }
+        }
+    }
+
+    private void disable() {
+        overBudget = true;
+        ready = false;
+        slots = new Entry[0];
+        slotPostings = new int[0];
+        slotCount = 0;
+        live = 0;
+        slotById.clear();
+        postings.clear();
+        estimatedBytes = 0;
+        log.warn("Search index exceeded its memory budget of {} bytes and was disabled; "
+                + "search falls back to the database", memoryBudget);
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    // growable int array; posting lists would otherwise be boxed Integer sets
+    private static final class IntList {
+
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+    }
+}
@@ -1,91 +1,283 @@
 package org.example.demo2.services;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
 import lombok.extern.slf4j.Slf4j;
+import org.example.demo2.datasource.ReadYourWritesTracker;
 import org.example.demo2.entities.Student;
 import org.example.demo2.exceptions.DuplicateResourceException;
+import org.example.demo2.exceptions.InvalidRequestException;
 import org.example.demo2.exceptions.ResourceNotFoundException;
 import org.example.demo2.exceptions.UnauthorizedActionException;
+import org.example.demo2.model.BatchRowResult;
+import org.example.demo2.model.StudentBatchResult;
 import org.example.demo2.model.StudentDTO;
+import org.example.demo2.model.StudentListVersion;
+import org.example.demo2.model.StudentPage;
+import org.example.demo2.model.StudentStats;
+import org.example.demo2.model.StudentVersion;
+import org.example.demo2.model.StudentView;
 import org.example.demo2.repositories.StudentRepository;
+import org.example.demo2.security.BoundedPasswordEncoder;
+import org.example.demo2.security.CredentialVersionRegistry;
+import org.example.demo2.security.StudentPrincipal;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SequenceWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+// one timer per public method, tagged with class, method and exception
+@Timed(value = "students.service", histogram = true)
 public class StudentService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+
     private final StudentRepository studentRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final CredentialVersionRegistry credentialVersions;
+    private final CustomUserDetailsService userDetailsService;
+    private final StudentIdAllocator studentIdAllocator;
+    private final Validator validator;
+    private final StudentSearchIndex searchIndex;
+    private final StudentStatistics statistics;
+    private final ReadYourWritesTracker readYourWrites;
+
+    // one JSON document per line
+    private final ObjectWriter ndjsonWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public StudentService(StudentRepository studentRepository,
-                          PasswordEncoder passwordEncoder) {
+                          BoundedPasswordEncoder passwordEncoder,
+                          CredentialVersionRegistry credentialVersions,
+                          CustomUserDetailsService userDetailsService,
+                          StudentIdAllocator studentIdAllocator,
+                          Validator validator,
+                          StudentSearchIndex searchIndex,
+                          StudentStatistics statistics,
+                          ReadYourWritesTracker readYourWrites,
+                          JsonMapper jsonMapper) {
         this.studentRepository = studentRepository;
         this.passwordEncoder = passwordEncoder;
+        this.credentialVersions = credentialVersions;
+        this.userDetailsService = userDetailsService;
+        this.studentIdAllocator = studentIdAllocator;
+        this.validator = validator;
+        this.searchIndex = searchIndex;
+        this.statistics = statistics;
+        this.readYourWrites = readYourWrites;
+        // Boot's mapper, so the export is written exactly like the JSON responses
+        this.ndjsonWriter = jsonMapper.writerFor(StudentDTO.class).withRootValueSeparator("\n");
     }
 
 
 
-    private Student dtoToEntity(StudentDTO dto) {
-        Student student = new Student();
-        student.setId(dto.getId());
-        student.setUsername(dto.getUsername());
-        student.setName(dto.getFirstName() + " " + dto.getLastName());
-        student.setEmail(dto.getEmail());
-        student.setRole(dto.getRole());
-        student.setPassword(dto.getPassword()); // encoded later
-        return student;
+    public StudentDTO createStudent(StudentDTO dto) {
+
+        log.debug("Creating student");
+
+        // one INSERT: the id is pre-allocated and uniqueness is left to the database constraints
+        Student student = newStudent(dto, studentIdAllocator.nextId(),
+                passwordEncoder.encode(dto.getPassword()));
+
+        Student saved;
+        try {
+            saved = studentRepository.saveAndFlush(student);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateResource(e, student);
+        }
+
+        searchIndex.put(StudentMapper.toView(saved));
+        statistics.created(saved);
+        // the new student's first login must not miss the row on a lagging replica
+        readYourWrites.recordWrite(saved.getUsername());
+        return StudentMapper.toDto(saved);
     }
 
-    private StudentDTO entityToDto(Student student) {
-        StudentDTO dto = new StudentDTO();
-        dto.setId(student.getId());
-        dto.setUsername(student.getUsername());
+    /**
+     * Creates many students at once. Every row is validated and checked for
+     * duplicates with set-based queries, passwords are hashed in parallel, and the
+     * valid rows are inserted with JDBC batching. Each row reports its own outcome.
+     */
+    public StudentBatchResult createStudents(List<StudentDTO> dtos) {
+
+        StudentPrincipal currentStudent = getLoggedInStudent();
+
+        if (!"ADMIN".equalsIgnoreCase(currentStudent.getRole())) {
+            throw new UnauthorizedActionException("Only admin can import students");
+        }
+
+        if (dtos.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException(
+                    "A batch can contain at most " + MAX_BATCH_SIZE + " students");
+        }
+
+        log.info("Creating {} students in bulk", dtos.size());
+
+        List<BatchRowResult> results = new ArrayList<>(dtos.size());
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+
+        for (int i = 0; i < dtos.size(); i++) {
+            StudentDTO dto = dtos.get(i);
+            Map<String, String> errors = new LinkedHashMap<>();
+
+            if (dto == null) {
+                errors.put("student", "Student must not be null");
+            } else {
+                for (ConstraintViolation<StudentDTO> violation : validator.validate(dto, Default.class, StudentDTO.Create.class)) {
+                    errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+                }
+                // the unique indexes compare case-insensitively, so must the checks
+                if (errors.isEmpty() && !usernames.add(uniqueKey(dto.getUsername()))) {
+                    errors.put("username", "Username repeated in batch");
+                }
+                if (errors.isEmpty() && !emails.add(uniqueKey(dto.getEmail()))) {
+                    errors.put("email", "Email repeated in batch");
+                }
+            }
+            results.add(new BatchRowResult(i, false, null, errors));
+        }
+
+        List<BatchRowResult> accepted = results.stream()
+                .filter(row -> row.getErrors().isEmpty())
+                .collect(Collectors.toList());
+
+        if (!accepted.isEmpty()) {
+            // queried with the values as sent, so the column indexes are used; matched by key
+            Set<String> existingUsernames = uniqueKeys(studentRepository.findExistingUsernames(
+                    accepted.stream().map(row -> dtos.get(row.getIndex()).getUsername()).collect(Collectors.toList())));
+            Set<String> existingEmails = uniqueKeys(studentRepository.findExistingEmails(
+                    accepted.stream().map(row -> dtos.get(row.getIndex()).getEmail()).collect(Collectors.toList())));
+
+            for (BatchRowResult row : accepted) {
+                StudentDTO dto = dtos.get(row.getIndex());
+                if (existingUsernames.contains(uniqueKey(dto.getUsername()))) {
+                    row.getErrors().put("username", "Username already exists");
+                } else if (existingEmails.contains(uniqueKey(dto.getEmail()))) {
+                    row.getErrors().put("email", "Email already exists");
+                }
+            }
+            accepted.removeIf(row -> !row.getErrors().isEmpty());
+        }
 
-        if (student.getName() != null && student.getName().contains(" ")) {
-            String[] parts = student.getName().split(" ", 2);
-            dto.setFirstName(parts[0]);
-            dto.setLastName(parts[1]);
-        } else {
-            dto.setFirstName(student.getName());
-            dto.setLastName("");
+        if (!accepted.isEmpty()) {
+            insertBatch(dtos, accepted);
         }
 
-        dto.setEmail(student.getEmail());
-        dto.setRole(student.getRole());
-        dto.setCreatedBy(student.getCreatedBy());
-        dto.setModifiedBy(student.getModifiedBy());
-        dto.setPassword(student.getPassword());
-        return dto;
+        int created = (int) results.stream().filter(BatchRowResult::isCreated).count();
+
+        return new StudentBatchResult(created, results.size() - created, results);
     }
 
+    private void insertBatch(List<StudentDTO> dtos, List<BatchRowResult> accepted) {
 
+        // BCrypt dominates the cost of a row, so hash in parallel on the hashing pool
+        List<String> hashes = passwordEncoder.encodeAll(accepted.stream()
+                .map(row -> dtos.get(row.getIndex()).getPassword())
+                .collect(Collectors.toList()));
 
-    public StudentDTO createStudent(StudentDTO dto) {
+        List<Long> ids = studentIdAllocator.nextIds(accepted.size());
+        List<Student> students = new ArrayList<>(accepted.size());
 
-        log.info("Creating student");
+        for (int i = 0; i < accepted.size(); i++) {
+            StudentDTO dto = dtos.get(accepted.get(i).getIndex());
+            students.add(newStudent(dto, ids.get(i), hashes.get(i)));
+        }
 
-        if (studentRepository.existsByUsername(dto.getUsername())) {
-            throw new DuplicateResourceException("Username already exists");
+        try {
+            studentRepository.saveAll(students);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent insert took one of the values after our checks; nothing was written,
+            // so insert row by row and fail only the rows that conflict
+            log.warn("Bulk insert of {} students rejected by a constraint, retrying row by row", students.size());
+            insertOneByOne(dtos, accepted, ids, hashes);
+            return;
         }
 
-        if (studentRepository.existsByEmail(dto.getEmail())) {
-            throw new DuplicateResourceException("Email already exists");
+        for (int i = 0; i < accepted.size(); i++) {
+            markCreated(accepted.get(i), students.get(i));
         }
+    }
 
-        Student student = dtoToEntity(dto);
-        student.setPassword(passwordEncoder.encode(dto.getPassword()));
-        student.setRole(dto.getRole().toUpperCase());
+    private void insertOneByOne(List<StudentDTO> dtos, List<BatchRowResult> accepted,
+                                List<Long> ids, List<String> hashes) {
+
+        for (int i = 0; i < accepted.size(); i++) {
+            BatchRowResult row = accepted.get(i);
+            // fresh entities: the failed batch may have left the old ones half-persisted
+            Student student = newStudent(dtos.get(row.getIndex()), ids.get(i), hashes.get(i));
+            try {
+                studentRepository.saveAndFlush(student);
+            } catch (DataIntegrityViolationException e) {
+                String field = duplicateField(e, student);
+                if (field == null) {
+                    row.getErrors().put("student", "Duplicate value. Already exists.");
+                } else {
+                    row.getErrors().put(field, duplicateMessage(field));
+                }
+                continue;
+            }
+            markCreated(row, student);
+        }
+    }
 
-        Student saved = studentRepository.save(student);
-        saved.setCreatedBy(saved.getId());
-        saved.setModifiedBy(saved.getId());
+    private void markCreated(BatchRowResult row, Student student) {
+        row.setCreated(true);
+        row.setId(student.getId());
+        searchIndex.put(StudentMapper.toView(student));
+        statistics.created(student);
+        readYourWrites.recordWrite(student.getUsername());
+    }
 
-        return entityToDto(studentRepository.save(saved));
+    private static String uniqueKey(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> uniqueKeys(Set<String> values) {
+        return values.stream().map(StudentService::uniqueKey).collect(Collectors.toSet());
+    }
+
+    private Student newStudent(StudentDTO dto, long id, String encodedPassword) {
+        Student student = StudentMapper.toEntity(dto);
+        student.setId(id);
+        student.setPassword(encodedPassword);
+        student.setRole(dto.getRole().toUpperCase());
+        // the id is known before the insert, so the audit columns are written in the same statement
+        student.setCreatedBy(id);
+        student.setModifiedBy(id);
+        return student;
     }
 
 
@@ -96,7 +288,7 @@ public class StudentService {
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Student not found with id " + id));
 
-        Student currentStudent = getLoggedInStudent();
+        StudentPrincipal currentStudent = getLoggedInStudent();
 
         if (!existing.getCreatedBy().equals(currentStudent.getId())) {
             log.warn("Unauthorized update attempt by {}", currentStudent.getId());
@@ -104,48 +296,204 @@ public class StudentService {
                     "Only the logged-in student can update their own profile");
         }
 
-        existing.setName(dto.getFirstName() + " " + dto.getLastName());
+        StudentMapper.setName(existing, dto.getFirstName(), dto.getLastName());
         existing.setEmail(dto.getEmail());
 
-        if (dto.getPassword() != null && !dto.getPassword().isBlank()) {
+        // resending the current password is not a change, the sessions stay valid
+        boolean passwordChanged = dto.getPassword() != null && !dto.getPassword().isBlank()
+                && !passwordEncoder.matches(dto.getPassword(), existing.getPassword());
+
+        if (passwordChanged) {
             existing.setPassword(passwordEncoder.encode(dto.getPassword()));
+            existing.setCredentialVersion(nextCredentialVersion(existing));
         }
 
         existing.setModifiedBy(currentStudent.getId());
 
-        return entityToDto(studentRepository.save(existing));
+        Student saved = studentRepository.save(existing);
+        readYourWrites.recordWrite(saved.getUsername());
+        userDetailsService.evict(saved.getUsername());
+        searchIndex.put(StudentMapper.toView(saved));
+
+        if (passwordChanged) {
+            credentialVersions.bump(saved.getId(), saved.getCredentialVersion());
+        }
+
+        return StudentMapper.toDto(saved);
     }
 
 
 
-    public List<StudentDTO> getAllStudents() {
+    @Transactional(readOnly = true)
+    public StudentPage getAllStudents(Long after, int limit) {
 
-        Student currentStudent = getLoggedInStudent();
+        StudentPrincipal currentStudent = getLoggedInStudent();
 
         if (!"ADMIN".equalsIgnoreCase(currentStudent.getRole())) {
             throw new UnauthorizedActionException("Only admin can view all students");
         }
 
-        return studentRepository.findAll()
-                .stream()
-                .map(this::entityToDto)
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        long cursor = after == null ? 0L : after;
+
+        // fetch one extra row to learn whether another page exists
+        List<StudentView> rows = studentRepository.findViewsAfter(cursor, Limit.of(pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        List<StudentDTO> content = rows.stream()
+                .map(StudentMapper::toDto)
+                .collect(Collectors.toList());
+
+        Long nextCursor = hasMore ? rows.get(rows.size() - 1).id() : null;
+
+        return new StudentPage(content, pageSize, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public StudentListVersion getStudentsVersion(Long after, int limit) {
+
+        StudentPrincipal currentStudent = getLoggedInStudent();
+
+        if (!"ADMIN".equalsIgnoreCase(currentStudent.getRole())) {
+            throw new UnauthorizedActionException("Only admin can view all students");
+        }
+
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        // the same window getAllStudents reads, including the row that decides hasMore
+        return StudentListVersion.of(studentRepository.findVersionsAfter(
+                after == null ? 0L : after, Limit.of(pageSize + 1)));
+    }
+
+    /**
+     * Type-ahead search for admins over username, email and name. Served from
+     * the in-memory index; while it is still loading, or if it was disabled for
+     * exceeding its memory budget, from a LIKE query instead.
+     */
+    public List<StudentDTO> searchStudents(String query, int limit) {
+
+        StudentPrincipal currentStudent = getLoggedInStudent();
+
+        if (!"ADMIN".equalsIgnoreCase(currentStudent.getRole())) {
+            throw new UnauthorizedActionException("Only admin can search students");
+        }
+
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("Search query must not be empty");
+        }
+        if (query.length() > StudentSearchIndex.MAX_QUERY_LENGTH) {
+            throw new InvalidRequestException(
+                    "Search query can have at most " + StudentSearchIndex.MAX_QUERY_LENGTH + " characters");
+        }
+
+        int size = Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+
+        if (searchIndex.isReady()) {
+            return searchIndex.search(query, size).stream()
+                    .map(hit -> StudentMapper.toDto(hit.student()))
+                    .collect(Collectors.toList());
+        }
+
+        log.debug("Search index not ready, searching the database");
+
+        String pattern = "%" + query.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_") + "%";
+
+        return studentRepository.findViewsMatching(pattern, Limit.of(size)).stream()
+                .map(StudentMapper::toDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Students per role and created per day, from counters kept in memory, so
+     * the cost does not depend on the table size.
+     */
+    public StudentStats getStatistics() {
+
+        StudentPrincipal currentStudent = getLoggedInStudent();
+
+        if (!"ADMIN".equalsIgnoreCase(currentStudent.getRole())) {
+            throw new UnauthorizedActionException("Only admin can view student statistics");
+        }
+
+        return statistics.snapshot();
+    }
+
+    public void checkExportAllowed() {
+
+        StudentPrincipal currentStudent = getLoggedInStudent();
+
+        if (!"ADMIN".equalsIgnoreCase(currentStudent.getRole())) {
+            throw new UnauthorizedActionException("Only admin can export students");
+        }
+    }
+
+    /**
+     * Streams every student as NDJSON. Rows are read through a database cursor
+     * and detached once written, so memory use does not depend on the table size.
+     */
+    @Transactional(readOnly = true)
+    public void exportStudents(OutputStream out) throws IOException {
+
+        checkExportAllowed();
+
+        long exported = 0;
+
+        try (Stream<Student> students = studentRepository.streamAllOrderById();
+             SequenceWriter writer = ndjsonWriter.writeValues(out)) {
+
+            Iterator<Student> it = students.iterator();
+            while (it.hasNext()) {
+                Student student = it.next();
+
+                writer.write(StudentMapper.toDto(student));
+
+                entityManager.detach(student);
+                exported++;
+            }
+        }
+
+        log.info("Exported {} students", exported);
+    }
+
+    @Transactional(readOnly = true)
+    public StudentVersion getStudentVersion(Long id) {
+
+        StudentVersion version = studentRepository.findVersionById(id)
+                .orElseThrow(() ->
+                        new ResourceNotFoundException("Student not found with id " + id));
+
+        StudentPrincipal currentStudent = getLoggedInStudent();
+
+        if (!version.createdBy().equals(currentStudent.getId())
+                && !"ADMIN".equalsIgnoreCase(currentStudent.getRole())) {
+            throw new UnauthorizedActionException("You are not allowed to view this profile");
+        }
+
+        return version;
+    }
+
+    @Transactional(readOnly = true)
     public StudentDTO getStudentById(Long id) {
 
-        Student target = studentRepository.findById(id)
+        StudentView target = studentRepository.findViewById(id)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Student not found with id " + id));
 
-        Student currentStudent = getLoggedInStudent();
+        StudentPrincipal currentStudent = getLoggedInStudent();
 
-        if (!target.getCreatedBy().equals(currentStudent.getId())
+        if (!target.createdBy().equals(currentStudent.getId())
                 && !"ADMIN".equalsIgnoreCase(currentStudent.getRole())) {
             throw new UnauthorizedActionException("You are not allowed to view this profile");
         }
 
-        return entityToDto(target);
+        return StudentMapper.toDto(target);
     }
 
 
@@ -156,7 +504,7 @@ public class StudentService {
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Student not found with id " + id));
 
-        Student currentStudent = getLoggedInStudent();
+        StudentPrincipal currentStudent = getLoggedInStudent();
 
         if (!delete.getCreatedBy().equals(currentStudent.getId())) {
             throw new UnauthorizedActionException(
@@ -164,17 +512,73 @@ public class StudentService {
         }
 
         studentRepository.deleteById(id);
+        searchIndex.remove(id);
+        statistics.deleted(delete);
+        readYourWrites.recordWrite(delete.getUsername());
+        userDetailsService.evict(delete.getUsername());
+        credentialVersions.revokeAll(id);
         log.info("Student deleted with id {}", id);
     }
 
 
 
-    private Student getLoggedInStudent() {
+    private StudentPrincipal getLoggedInStudent() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
 
-        return studentRepository.findByUsername(username)
-                .orElseThrow(() ->
-                        new ResourceNotFoundException("Logged-in student not found"));
+        // JwtFilter already resolved the student, either from the token claims or the database
+        if (auth.getPrincipal() instanceof StudentPrincipal principal) {
+            return principal;
+        }
+
+        try {
+            return userDetailsService.loadPrincipal(auth.getName());
+        } catch (UsernameNotFoundException e) {
+            throw new ResourceNotFoundException("Logged-in student not found");
+        }
+    }
+
+    private RuntimeException duplicateResource(DataIntegrityViolationException e, Student student) {
+
+        String field = duplicateField(e, student);
+        return field == null ? e : new DuplicateResourceException(duplicateMessage(field));
+    }
+
+    // "username", "email", or null when the row does not clash with either unique key
+    private String duplicateField(DataIntegrityViolationException e, Student student) {
+
+        String constraint = null;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                constraint = violation.getConstraintName();
+                break;
+            }
+        }
+
+        if (constraint != null) {
+            String name = constraint.toLowerCase(Locale.ROOT);
+            if (name.contains(Student.USERNAME_CONSTRAINT)) {
+                return "username";
+            }
+            if (name.contains(Student.EMAIL_CONSTRAINT)) {
+                return "email";
+            }
+        }
+
+        // a schema not yet migrated with db/student-unique-keys.sql still has generated index names
+        if (studentRepository.existsByUsername(student.getUsername())) {
+            return "username";
+        }
+        if (studentRepository.existsByEmail(student.getEmail())) {
+            return "email";
+        }
+        return null;
+    }
+
+    private static String duplicateMessage(String field) {
+        return "username".equals(field) ? "Username already exists" : "Email already exists";
+    }
+
+    private long nextCredentialVersion(Student student) {
+        return student.getCredentialVersion() == null ? 1 : student.getCredentialVersion() + 1;
     }
 }
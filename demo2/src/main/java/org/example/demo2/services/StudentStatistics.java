@@ -0,0 +1,118 @@
+package org.example.demo2.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.demo2.entities.Student;
+import org.example.demo2.model.StudentStats;
+import org.example.demo2.repositories.StudentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-role and per-creation-day student counts, adjusted by StudentService on
+ * every create and delete so reading them never scans the table. LongAdder
+ * cells keep concurrent writers from contending on one counter. The counts are
+ * periodically replaced by group-by queries, which corrects any drift (failed
+ * writes, rows changed outside the service).
+ */
+@Slf4j
+@Component
+public class StudentStatistics {
+
+    private final StudentRepository studentRepository;
+    private final int days;
+
+    private volatile Counts counts = new Counts(LocalDateTime.now());
+
+    public StudentStatistics(StudentRepository studentRepository,
+                             @Value("${students.stats.days:30}") int days) {
+        this.studentRepository = studentRepository;
+        this.days = days;
+    }
+
+    private static final class Counts {
+
+        final LongAdder total = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> byRole = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<LocalDate, LongAdder> createdPerDay = new ConcurrentHashMap<>();
+        final LocalDateTime reconciledAt;
+
+        Counts(LocalDateTime reconciledAt) {
+            this.reconciledAt = reconciledAt;
+        }
+
+        void add(String role, LocalDateTime createdAt, long delta) {
+            total.add(delta);
+            if (role != null) {
+                byRole.computeIfAbsent(role, r -> new LongAdder()).add(delta);
+            }
+            if (createdAt != null) {
+                createdPerDay.computeIfAbsent(createdAt.toLocalDate(), d -> new LongAdder()).add(delta);
+            }
+        }
+    }
+
+    public void created(Student student) {
+        counts.add(student.getRole(), student.getCreatedAt(), 1);
+    }
+
+    public void deleted(Student student) {
+        counts.add(student.getRole(), student.getCreatedAt(), -1);
+    }
+
+    public StudentStats snapshot() {
+        Counts current = counts;
+        LocalDate firstDay = LocalDate.now().minusDays(days - 1L);
+
+        Map<String, Long> byRole = new TreeMap<>();
+        current.byRole.forEach((role, count) -> byRole.put(role, count.sum()));
+
+        Map<LocalDate, Long> perDay = new TreeMap<>();
+        current.createdPerDay.forEach((day, count) -> {
+            if (!day.isBefore(firstDay)) {
+                perDay.put(day, count.sum());
+            }
+        });
+
+        return new StudentStats(current.total.sum(), byRole, perDay, current.reconciledAt);
+    }
+
+    /**
+     * Rebuilds the counts from the database. Writes that commit while the queries
+     * run may be counted twice or not at all; the next run corrects that.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${students.stats.reconcile-interval:10m}",
+            initialDelayString = "${students.stats.reconcile-interval:10m}")
+    public void reconcile() {
+
+        LocalDateTime now = LocalDateTime.now();
+        Counts fresh = new Counts(now);
+
+        for (Object[] row : studentRepository.countByRole()) {
+            long count = (Long) row[1];
+            fresh.total.add(count);
+            fresh.byRole.computeIfAbsent((String) row[0], r -> new LongAdder()).add(count);
+        }
+
+        LocalDateTime since = now.toLocalDate().minusDays(days - 1L).atStartOfDay();
+        for (Object[] row : studentRepository.countCreatedPerDaySince(since)) {
+            fresh.createdPerDay.computeIfAbsent((LocalDate) row[0], d -> new LongAdder()).add((Long) row[1]);
+        }
+
+        long drift = fresh.total.sum() - counts.total.sum();
+        if (drift != 0) {
+            log.info("Student statistics reconciled, total corrected by {}", drift);
+        }
+        counts = fresh;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.demo2;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.example.demo2.model.StudentDTO;
+import org.example.demo2.security.JwtUtil;
+import org.example.demo2.services.CustomUserDetailsService;
+import org.example.demo2.services.StudentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the login, token and create paths on virtual threads and fails if any of
+ * them parks while pinned to its carrier (e.g. blocking inside a synchronized
+ * block) with our code on the stack.
+ */
+@SpringBootTest
+class VirtualThreadPinningTest {
+
+	private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+	@Autowired
+	private StudentService studentService;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private AuthenticationManager authenticationManager;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Test
+	void hotPathsDoNotPinCarrierThreads() throws Exception {
+
+		List<String> pinned = new CopyOnWriteArrayList<>();
+
+		try (RecordingStream recording = new RecordingStream()) {
+			recording.enable(PINNED_EVENT).withStackTrace().withThreshold(Duration.ZERO);
+			recording.onEvent(PINNED_EVENT, event -> {
+				RecordedStackTrace stackTrace = event.getStackTrace();
+				if (stackTrace != null && touchesOurCode(stackTrace)) {
+					pinned.add(format(stackTrace));
+				}
+			});
+			recording.startAsync();
+
+			runOnVirtualThreads(32);
+
+			recording.stop();
+		}
+
+		assertTrue(pinned.isEmpty(), "Virtual threads pinned in application code:\n"
+				+ String.join("\n\n", pinned));
+	}
+
+	private void runOnVirtualThreads(int users) throws Exception {
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < users; i++) {
+				String username = "pinning" + i;
+				futures.add(executor.submit(() -> exercise(username)));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+	}
+
+	private void exercise(String username) {
+		StudentDTO dto = new StudentDTO();
+		dto.setFirstName("Virtual");
+		dto.setLastName("Thread");
+		dto.setUsername(username);
+		dto.setEmail(username + "@gmail.com");
+		dto.setPassword("Passw0rd!");
+		dto.setRole("user");
+		studentService.createStudent(dto);
+
+		UserDetails user = (UserDetails) authenticationManager.authenticate(
+				new UsernamePasswordAuthenticationToken(username, "Passw0rd!")).getPrincipal();
+
+		String token = jwtUtil.generateToken(user);
+		jwtUtil.parseClaims(token);
+		jwtUtil.parseClaims(token);
+
+		userDetailsService.loadUserByUsername(username);
+	}
+
+	private static boolean touchesOurCode(RecordedStackTrace stackTrace) {
+		for (RecordedFrame frame : stackTrace.getFrames()) {
+			if (frame.getMethod() != null
+					&& frame.getMethod().getType().getName().startsWith("org.example.demo2")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String format(RecordedStackTrace stackTrace) {
+		return stackTrace.getFrames().stream()
+				.map(frame -> "  at " + frame.getMethod().getType().getName()
+						+ "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+				.collect(Collectors.joining("\n"));
+	}
+}
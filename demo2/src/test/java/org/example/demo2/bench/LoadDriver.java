@@ -0,0 +1,152 @@
+package org.example.demo2.bench;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load generator: each client repeatedly picks an operation by weight,
+ * runs it and records its latency, until the duration is over.
+ */
+public final class LoadDriver {
+
+	/** One kind of request; returns false when the response was not the expected one. */
+	@FunctionalInterface
+	public interface Request {
+		boolean execute() throws Exception;
+	}
+
+	public record Operation(String name, int weight, Request request) {
+	}
+
+	public record Result(String name, long requests, long errors, double seconds,
+						 double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+
+		public double throughput() {
+			return requests / seconds;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-16s %9d req %6d err %10.1f req/s   p50 %7.2f ms   p95 %7.2f ms   p99 %7.2f ms   max %8.2f ms",
+					name, requests, errors, throughput(), p50Millis, p95Millis, p99Millis, maxMillis);
+		}
+	}
+
+	private LoadDriver() {
+	}
+
+	public static Result run(String name, int concurrency, Duration duration, Request request) throws Exception {
+		return run(concurrency, duration, List.of(new Operation(name, 1, request))).get(name);
+	}
+
+	public static Map<String, Result> run(int concurrency, Duration duration,
+										  List<Operation> operations) throws Exception {
+
+		int totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+		long deadline = System.nanoTime() + duration.toNanos();
+		long started = System.nanoTime();
+
+		List<Future<Recorder[]>> clients = new ArrayList<>(concurrency);
+
+		// clients are virtual threads so the driver itself is never the bottleneck
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int c = 0; c < concurrency; c++) {
+				clients.add(executor.submit(() -> {
+					Recorder[] recorders = new Recorder[operations.size()];
+					for (int i = 0; i < recorders.length; i++) {
+						recorders[i] = new Recorder();
+					}
+					while (System.nanoTime() < deadline) {
+						int op = pick(operations, totalWeight);
+						long start = System.nanoTime();
+						boolean ok;
+						try {
+							ok = operations.get(op).request().execute();
+						} catch (Exception e) {
+							ok = false;
+						}
+						recorders[op].record(System.nanoTime() - start, ok);
+					}
+					return recorders;
+				}));
+			}
+
+			Recorder[] merged = new Recorder[operations.size()];
+			for (int i = 0; i < merged.length; i++) {
+				merged[i] = new Recorder();
+			}
+			for (Future<Recorder[]> client : clients) {
+				Recorder[] recorders = client.get();
+				for (int i = 0; i < merged.length; i++) {
+					merged[i].addAll(recorders[i]);
+				}
+			}
+
+			double seconds = (System.nanoTime() - started) / 1e9;
+			Map<String, Result> results = new LinkedHashMap<>();
+			for (int i = 0; i < merged.length; i++) {
+				results.put(operations.get(i).name(), merged[i].summarize(operations.get(i).name(), seconds));
+			}
+			return results;
+		}
+	}
+
+	private static int pick(List<Operation> operations, int totalWeight) {
+		int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+		for (int i = 0; i < operations.size(); i++) {
+			roll -= operations.get(i).weight();
+			if (roll < 0) {
+				return i;
+			}
+		}
+		return operations.size() - 1;
+	}
+
+	private static final class Recorder {
+
+		private long[] latencies = new long[1024];
+		private int count;
+		private long errors;
+
+		void record(long nanos, boolean ok) {
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = nanos;
+			if (!ok) {
+				errors++;
+			}
+		}
+
+		void addAll(Recorder other) {
+			for (int i = 0; i < other.count; i++) {
+				record(other.latencies[i], true);
+			}
+			errors += other.errors;
+		}
+
+		Result summarize(String name, double seconds) {
+			long[] sorted = Arrays.copyOf(latencies, count);
+			Arrays.sort(sorted);
+			return new Result(name, count, errors, seconds,
+					percentile(sorted, 0.50), percentile(sorted, 0.95),
+					percentile(sorted, 0.99), percentile(sorted, 1.0));
+		}
+
+		private static double percentile(long[] sorted, double p) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.ceil(p * sorted.length) - 1;
+			return sorted[Math.max(0, index)] / 1_000_000.0;
+		}
+	}
+}
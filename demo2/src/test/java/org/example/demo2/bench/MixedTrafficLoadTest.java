@@ -0,0 +1,261 @@
+package org.example.demo2.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the application on in-memory H2, seeds students through the batch endpoint
+ * and drives a weighted mix of login, create, get-by-id, update and list requests.
+ * Throughput and p50/p95/p99/max per operation are written as JSON to load.output.
+ *
+ * Runs under failsafe: small in every mvn verify as a smoke test of the whole
+ * stack, full size on both thread modes with mvn -Pload-test verify.
+ * Tuning (system properties): load.students=500, load.concurrency=32, load.seconds=30,
+ * load.warmup-seconds=5, load.max-error-rate=0.01, load.max-p99-ms (unset = no budget),
+ * load.virtual-threads=false (Tomcat on platform or virtual threads),
+ * load.output=target/load-test/results.json
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.hikari.maximum-pool-size=20",
+		"spring.threads.virtual.enabled=${load.virtual-threads:false}",
+		"logging.level.root=WARN",
+		"logging.level.org.example.demo2=WARN"
+})
+class MixedTrafficLoadTest {
+
+	private static final String PASSWORD = "Passw0rd!";
+	private static final int SEED_BATCH_SIZE = 500;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.build();
+
+	@Value("${local.server.port}")
+	private int port;
+
+	@Value("${spring.threads.virtual.enabled}")
+	private boolean virtualThreads;
+
+	private String baseUrl;
+
+	/** A seeded student with a token of its own. */
+	private record Account(long id, String username, String token) {
+	}
+
+	@Test
+	void mixedTraffic() throws Exception {
+
+		int students = Integer.getInteger("load.students", 500);
+		int concurrency = Integer.getInteger("load.concurrency", 32);
+		Duration duration = Duration.ofSeconds(Long.getLong("load.seconds", 30L));
+		Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5L));
+		double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+		String maxP99 = System.getProperty("load.max-p99-ms");
+		Path output = Path.of(System.getProperty("load.output", "target/load-test/results.json"));
+
+		baseUrl = "http://localhost:" + port;
+		String run = Long.toString(System.currentTimeMillis(), 36);
+
+		send(json("/students", student("loadadmin" + run, "ADMIN")));
+		String adminToken = login("loadadmin" + run);
+
+		List<Long> ids = seed(adminToken, "seed" + run, students);
+
+		// students may only update their own profile, so updates need the owner's token
+		List<Account> accounts = new ArrayList<>();
+		for (int i = 0; i < Math.min(ids.size(), concurrency * 2); i++) {
+			String username = "seed" + run + "-" + i;
+			accounts.add(new Account(ids.get(i), username, login(username)));
+		}
+
+		AtomicLong created = new AtomicLong();
+
+		List<LoadDriver.Operation> mix = List.of(
+				new LoadDriver.Operation("login", 1, () -> {
+					String username = "seed" + run + "-" + ThreadLocalRandom.current().nextInt(ids.size());
+					return send(json("/auth/login", credentials(username))) == 200;
+				}),
+				new LoadDriver.Operation("create", 1, () -> {
+					String username = "new" + run + "-" + created.incrementAndGet();
+					return send(json("/students", student(username, "USER"))) == 201;
+				}),
+				new LoadDriver.Operation("getById", 5, () -> {
+					long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+					return send(authorized("/students/" + id, adminToken).GET().build()) == 200;
+				}),
+				new LoadDriver.Operation("update", 1, () -> update(accounts)),
+				new LoadDriver.Operation("list", 2, () -> {
+					long after = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+					return send(authorized("/students?limit=50&after=" + after, adminToken).GET().build()) == 200;
+				}));
+
+		// warm up JIT, caches and connection pools before measuring
+		LoadDriver.run(concurrency, warmup, mix);
+		Map<String, LoadDriver.Result> results = LoadDriver.run(concurrency, duration, mix);
+
+		write(output, students, concurrency, duration, mix, results);
+
+		for (LoadDriver.Result result : results.values()) {
+			assertTrue(result.requests() > 0, result.name() + " was never executed");
+			assertTrue(result.errors() <= result.requests() * maxErrorRate,
+					result.name() + " error rate above " + maxErrorRate + ": " + result);
+			if (maxP99 != null) {
+				assertTrue(result.p99Millis() <= Double.parseDouble(maxP99),
+						result.name() + " p99 above " + maxP99 + " ms: " + result);
+			}
+		}
+	}
+
+	private List<Long> seed(String adminToken, String prefix, int count) throws Exception {
+
+		List<Long> ids = new ArrayList<>(count);
+
+		for (int from = 0; from < count; from += SEED_BATCH_SIZE) {
+			StringBuilder body = new StringBuilder("[");
+			for (int i = from; i < Math.min(count, from + SEED_BATCH_SIZE); i++) {
+				if (i > from) {
+					body.append(',');
+				}
+				body.append(student(prefix + "-" + i, "USER"));
+			}
+			body.append(']');
+
+			HttpRequest request = authorized("/students/batch", adminToken)
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+					.build();
+			HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+			for (JsonNode row : mapper.readTree(response.body()).path("results")) {
+				if (!row.path("created").asBoolean()) {
+					throw new IllegalStateException("Seeding failed: " + row);
+				}
+				ids.add(row.path("id").asLong());
+			}
+		}
+		return ids;
+	}
+
+	// a profile edit without a password: no BCrypt and no token revocation, so only the update is timed
+	private boolean update(List<Account> accounts) throws Exception {
+		Account account = accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+		HttpRequest request = authorized("/students/" + account.id(), account.token())
+				.header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofString("""
+						{"firstName":"Load","lastName":"Updated","email":"%s@gmail.com","username":"%s","role":"USER"}
+						""".formatted(account.username(), account.username())))
+				.build();
+		return send(request) == 200;
+	}
+
+	private String login(String username) throws Exception {
+		HttpResponse<String> response = client.send(json("/auth/login", credentials(username)),
+				HttpResponse.BodyHandlers.ofString());
+		String token = mapper.readTree(response.body()).path("token").asText(null);
+		if (token == null) {
+			throw new IllegalStateException("Login failed for " + username + ": " + response.body());
+		}
+		return token;
+	}
+
+	private HttpRequest json(String path, String body) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+
+	private int send(HttpRequest request) throws Exception {
+		return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	private HttpRequest.Builder authorized(String path, String token) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.header("Authorization", "Bearer " + token);
+	}
+
+	private static String student(String username, String role) {
+		return """
+				{"firstName":"Load","lastName":"Test","email":"%s@gmail.com","username":"%s","password":"%s","role":"%s"}
+				""".formatted(username, username, PASSWORD, role);
+	}
+
+	private static String credentials(String username) {
+		return """
+				{"username":"%s","password":"%s"}
+				""".formatted(username, PASSWORD);
+	}
+
+	private void write(Path output, int students, int concurrency, Duration duration,
+					   List<LoadDriver.Operation> mix, Map<String, LoadDriver.Result> results) throws Exception {
+
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("students", students);
+		config.put("virtualThreads", virtualThreads);
+		config.put("concurrency", concurrency);
+		config.put("seconds", duration.toSeconds());
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		mix.forEach(op -> weights.put(op.name(), op.weight()));
+		config.put("mix", weights);
+
+		long requests = 0;
+		long errors = 0;
+		double seconds = 0;
+		Map<String, Object> operations = new LinkedHashMap<>();
+		for (LoadDriver.Result result : results.values()) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("requests", result.requests());
+			row.put("errors", result.errors());
+			row.put("throughput", result.throughput());
+			row.put("p50Ms", result.p50Millis());
+			row.put("p95Ms", result.p95Millis());
+			row.put("p99Ms", result.p99Millis());
+			row.put("maxMs", result.maxMillis());
+			operations.put(result.name(), row);
+
+			requests += result.requests();
+			errors += result.errors();
+			seconds = result.seconds();
+		}
+
+		Map<String, Object> total = new LinkedHashMap<>();
+		total.put("requests", requests);
+		total.put("errors", errors);
+		total.put("throughput", seconds > 0 ? requests / seconds : 0);
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("timestamp", Instant.now().toString());
+		report.put("config", config);
+		report.put("total", total);
+		report.put("operations", operations);
+
+		Files.createDirectories(output.toAbsolutePath().getParent());
+		mapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+	}
+}
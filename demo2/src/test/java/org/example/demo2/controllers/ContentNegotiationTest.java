@@ -0,0 +1,125 @@
+package org.example.demo2.controllers;
+
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class ContentNegotiationTest {
+
+	private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+	private static final String PASSWORD = "Passw0rd!";
+
+	private final ObjectMapper json = new JsonMapper();
+	private final ObjectMapper cbor = new CBORMapper();
+	private final ObjectMapper smile = new SmileMapper();
+
+	@Autowired
+	private WebApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context)
+				.addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+				.build();
+	}
+
+	@Test
+	void createsFromCborAndAnswersInCbor() throws Exception {
+		byte[] body = mockMvc.perform(post("/students")
+						.contentType(MediaType.APPLICATION_CBOR)
+						.accept(MediaType.APPLICATION_CBOR)
+						.content(cbor.writeValueAsBytes(student("cbor1"))))
+				.andExpect(status().isCreated())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		JsonNode created = cbor.readTree(body);
+		assertEquals("cbor1", created.get("username").asString());
+		// write-only, like in JSON
+		assertFalse(created.has("password"));
+	}
+
+	@Test
+	void answersInSmile() throws Exception {
+		long id = json.readTree(mockMvc.perform(post("/students")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(json.writeValueAsBytes(student("smile1"))))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsByteArray()).get("id").asLong();
+
+		byte[] body = mockMvc.perform(get("/students/" + id)
+						.header("Authorization", "Bearer " + login("smile1"))
+						.accept(SMILE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(SMILE))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		assertEquals("smile1", smile.readTree(body).get("username").asString());
+	}
+
+	@Test
+	void binaryFormatsShareTheJsonConfiguration() throws Exception {
+		// Boot's JSON mapper ignores unknown properties, so the CBOR one must too
+		Map<String, String> body = new HashMap<>(student("cbor2"));
+		body.put("nickname", "unknown to StudentDTO");
+
+		mockMvc.perform(post("/students")
+						.contentType(MediaType.APPLICATION_CBOR)
+						.accept(MediaType.APPLICATION_CBOR)
+						.content(cbor.writeValueAsBytes(body)))
+				.andExpect(status().isCreated());
+	}
+
+	@Test
+	void jsonStaysTheDefault() throws Exception {
+		mockMvc.perform(post("/students")
+						.contentType(MediaType.APPLICATION_JSON)
+						.accept(MediaType.ALL)
+						.content(json.writeValueAsBytes(student("default1"))))
+				.andExpect(status().isCreated())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+	}
+
+	private String login(String username) throws Exception {
+		byte[] body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(json.writeValueAsBytes(Map.of("username", username, "password", PASSWORD))))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		return json.readTree(body).get("token").asString();
+	}
+
+	private static Map<String, String> student(String username) {
+		return Map.of(
+				"firstName", "Binary",
+				"lastName", "Format",
+				"email", username + "@gmail.com",
+				"username", username,
+				"password", PASSWORD,
+				"role", "USER");
+	}
+}
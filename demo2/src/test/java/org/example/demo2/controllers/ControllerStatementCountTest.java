@@ -0,0 +1,222 @@
+package org.example.demo2.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.Filter;
+import org.example.demo2.services.StudentIdAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.example.demo2.monitoring.SqlStatementAssertions.assertStatements;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exact SQL statement count of each endpoint, security filters included. The
+ * second-level, query and principal caches are off so a cache hit cannot hide a
+ * redundant lookup or an N+1; a failure here means a request got more (or fewer)
+ * queries than before.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:statements;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		"cache.users.ttl=0s",
+		// ids come from an already reserved block, so no test pays for a block refill
+		"students.id.allocation-size=1000"
+})
+class ControllerStatementCountTest {
+
+	private static final String PASSWORD = "Passw0rd!";
+	private static final AtomicInteger USERS = new AtomicInteger();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private StudentIdAllocator studentIdAllocator;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context)
+				.addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+				.build();
+		studentIdAllocator.nextId();
+	}
+
+	@Test
+	void createStudent() throws Throwable {
+		// INSERT
+		assertStatements(1, () -> create(nextUsername(), "USER"));
+	}
+
+	@Test
+	void login() throws Throwable {
+		String username = nextUsername();
+		create(username, "USER");
+
+		// principal lookup, refresh token INSERT
+		assertStatements(2, () -> login(username));
+	}
+
+	@Test
+	void refreshToken() throws Throwable {
+		String username = nextUsername();
+		create(username, "USER");
+		String refreshToken = objectMapper.readTree(loginResponse(username)).path("refreshToken").asText();
+
+		// token lookup, mark used, principal lookup, next token INSERT; no password hash
+		assertStatements(4, () -> mockMvc.perform(post("/auth/refresh")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"refreshToken":"%s"}
+								""".formatted(refreshToken)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.refreshToken").isString()));
+	}
+
+	@Test
+	void getStudentById() throws Throwable {
+		String username = nextUsername();
+		long id = create(username, "USER");
+		String token = login(username);
+
+		// principal lookup, version for the ETag, projection
+		assertStatements(3, () -> mockMvc.perform(get("/students/" + id)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	void getAllStudents() throws Throwable {
+		String admin = nextUsername();
+		create(admin, "ADMIN");
+		String token = login(admin);
+
+		// principal lookup, list version for the ETag, one page of projections
+		assertStatements(3, () -> mockMvc.perform(get("/students").param("limit", "10")
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	void searchStudents() throws Throwable {
+		String admin = nextUsername();
+		create(admin, "ADMIN");
+		String token = login(admin);
+
+		// principal lookup only, matches come from the in-memory index
+		assertStatements(1, () -> mockMvc.perform(get("/students/search").param("q", admin)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].username").value(admin)));
+	}
+
+	@Test
+	void getStatistics() throws Throwable {
+		String admin = nextUsername();
+		create(admin, "ADMIN");
+		String token = login(admin);
+
+		// principal lookup only, the counts are kept in memory
+		assertStatements(1, () -> mockMvc.perform(get("/students/stats")
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.byRole.ADMIN").isNumber()));
+	}
+
+	@Test
+	void updateStudent() throws Throwable {
+		String username = nextUsername();
+		long id = create(username, "USER");
+		String token = login(username);
+
+		// principal lookup, load, UPDATE
+		assertStatements(3, () -> mockMvc.perform(put("/students/" + id)
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(student(username, "USER")))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	void deleteStudent() throws Throwable {
+		String username = nextUsername();
+		long id = create(username, "USER");
+		String token = login(username);
+
+		// principal lookup, load, DELETE
+		assertStatements(3, () -> mockMvc.perform(delete("/students/" + id)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isNoContent()));
+	}
+
+	@Test
+	void createStudentsBatch() throws Throwable {
+		String admin = nextUsername();
+		create(admin, "ADMIN");
+		String token = login(admin);
+
+		StringJoiner rows = new StringJoiner(",", "[", "]");
+		for (int i = 0; i < 10; i++) {
+			rows.add(student(nextUsername(), "USER"));
+		}
+
+		// principal lookup, existing usernames, existing emails, one batched INSERT
+		assertStatements(4, () -> mockMvc.perform(post("/students/batch")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(rows.toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.created").value(10)));
+	}
+
+	private long create(String username, String role) throws Exception {
+		String body = mockMvc.perform(post("/students")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(student(username, role)))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).path("id").asLong();
+	}
+
+	private String login(String username) throws Exception {
+		return objectMapper.readTree(loginResponse(username)).path("token").asText();
+	}
+
+	private String loginResponse(String username) throws Exception {
+		return mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"username":"%s","password":"%s"}
+								""".formatted(username, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+	}
+
+	private static String nextUsername() {
+		return "stmt" + USERS.incrementAndGet();
+	}
+
+	private static String student(String username, String role) {
+		return """
+				{"firstName":"Statement","lastName":"Count","email":"%s@gmail.com","username":"%s","password":"%s","role":"%s"}
+				""".formatted(username, username, PASSWORD, role);
+	}
+}
@@ -0,0 +1,199 @@
+package org.example.demo2.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.demo2.entities.Student;
+import org.example.demo2.model.StudentDTO;
+import org.example.demo2.security.StudentPrincipal;
+import org.example.demo2.services.CustomUserDetailsService;
+import org.example.demo2.services.StudentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Routing against two embedded databases. "Replication" is an H2 SCRIPT of the
+ * primary replayed into the replica, so a test decides exactly what the replica
+ * has seen and can tell from the data which database answered. The second-level
+ * and query caches stay on, as in production.
+ */
+@SpringBootTest(properties = {
+		"app.datasource.routing.enabled=true",
+		"spring.datasource.url=" + ReadWriteRoutingTest.PRIMARY_URL,
+		"app.datasource.replica.url=" + ReadWriteRoutingTest.REPLICA_URL,
+		"app.datasource.replica.hikari.connection-timeout=250",
+		"app.datasource.replica.hikari.allow-pool-suspension=true",
+		"app.datasource.routing.replica-retry-after=0s",
+		"cache.users.ttl=0s"
+})
+class ReadWriteRoutingTest {
+
+	static final String PRIMARY_URL = "jdbc:h2:mem:rw_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	static final String REPLICA_URL = "jdbc:h2:mem:rw_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	private static final AtomicLong IDS = new AtomicLong(900_000);
+
+	@Autowired
+	private StudentService studentService;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private ReadYourWritesTracker readYourWrites;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	@Qualifier("replicaDataSource")
+	private HikariDataSource replicaDataSource;
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void readsUseReplicaUntilOwnWrite() throws Exception {
+		long id = insertOnPrimary("routing1");
+		replicate();
+		execute(REPLICA_URL, "update student set first_name='Replica' where id=" + id);
+		authenticateAs(id, "routing1");
+
+		assertEquals("Replica", studentService.getStudentById(id).getFirstName());
+
+		StudentDTO update = new StudentDTO();
+		update.setFirstName("Updated");
+		update.setLastName("Student");
+		update.setEmail("routing1@gmail.com");
+		studentService.updateStudent(id, update);
+
+		// the write went to the primary only, and the writer now reads from there
+		assertEquals("Updated", firstName(PRIMARY_URL, id));
+		assertEquals("Replica", firstName(REPLICA_URL, id));
+		assertEquals("Updated", studentService.getStudentById(id).getFirstName());
+	}
+
+	@Test
+	void readsFallBackToPrimaryWhenReplicaIsDown() throws Exception {
+		replicate();
+		// not replicated: only the primary can answer
+		long id = insertOnPrimary("routing2");
+		authenticateAs(id, "routing2");
+
+		// the pool starts lazily, it has to exist before it can be suspended
+		replicaDataSource.getConnection().close();
+		replicaDataSource.getHikariPoolMXBean().suspendPool();
+		try {
+			assertEquals("Primary", studentService.getStudentById(id).getFirstName());
+		} finally {
+			replicaDataSource.getHikariPoolMXBean().resumePool();
+		}
+	}
+
+	@Test
+	void replicaReadsAreNotCachedForPrimaryReaders() throws Exception {
+		long id = insertOnPrimary("routing3");
+		replicate();
+		execute(REPLICA_URL, "update student set first_name='Replica' where id=" + id);
+		authenticateAs(id, "routing3");
+
+		assertEquals("Replica", studentService.getStudentById(id).getFirstName());
+
+		// a reader in its read-your-writes window must not get the replica's answer from the query cache
+		readYourWrites.recordWrite("routing3");
+		assertEquals("Primary", studentService.getStudentById(id).getFirstName());
+	}
+
+	@Test
+	void replicaReadsDoNotFillTheEntityCache() throws Exception {
+		long id = insertOnPrimary("routing4");
+		replicate();
+		execute(REPLICA_URL, "update student set credential_version=7 where id=" + id);
+
+		assertEquals(7L, userDetailsService.loadPrincipal("routing4").getCredentialVersion());
+		assertFalse(entityManagerFactory.getCache().contains(Student.class, id));
+
+		// an update loads the row from the primary, not from anything the replica read left behind
+		authenticateAs(id, "routing4");
+		StudentDTO update = new StudentDTO();
+		update.setFirstName("Updated");
+		update.setLastName("Student");
+		update.setEmail("routing4@gmail.com");
+		studentService.updateStudent(id, update);
+
+		assertEquals("0", column(PRIMARY_URL, id, "credential_version"));
+	}
+
+	private void authenticateAs(long id, String username) {
+		StudentPrincipal principal = new StudentPrincipal(id, username, null, "USER", 0);
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+
+	// written around the application, so the read-your-writes window is not involved
+	private long insertOnPrimary(String username) throws SQLException {
+		long id = IDS.incrementAndGet();
+		try (Connection connection = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+			 PreparedStatement insert = connection.prepareStatement(
+					 "insert into student (id, name, first_name, last_name, email, username, password, role, "
+							 + "credential_version, created_by, modified_by, created_at, modified_at) "
+							 + "values (?, 'Primary Student', 'Primary', 'Student', ?, ?, 'x', 'USER', 0, ?, ?, ?, ?)")) {
+			Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+			insert.setLong(1, id);
+			insert.setString(2, username + "@gmail.com");
+			insert.setString(3, username);
+			insert.setLong(4, id);
+			insert.setLong(5, id);
+			insert.setTimestamp(6, now);
+			insert.setTimestamp(7, now);
+			insert.executeUpdate();
+		}
+		return id;
+	}
+
+	private static void replicate() throws SQLException {
+		String script = "target/rw-replication.sql";
+		execute(PRIMARY_URL, "script to '" + script + "'");
+		execute(REPLICA_URL, "drop all objects");
+		execute(REPLICA_URL, "runscript from '" + script + "'");
+	}
+
+	private static void execute(String url, String sql) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private static String firstName(String url, long id) throws SQLException {
+		return column(url, id, "first_name");
+	}
+
+	private static String column(String url, long id, String column) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+			 Statement statement = connection.createStatement();
+			 ResultSet rows = statement.executeQuery("select " + column + " from student where id=" + id)) {
+			rows.next();
+			return rows.getString(1);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package org.example.demo2.monitoring;
+
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Asserts how many SQL statements a block runs on the current thread. MockMvc
+ * runs the filters and the controller on the test thread, so a whole request
+ * can be measured this way.
+ */
+public final class SqlStatementAssertions {
+
+	private SqlStatementAssertions() {
+	}
+
+	public static <T> T assertStatements(long expected, ThrowingSupplier<T> action) throws Throwable {
+		long before = SqlStatementCounter.current();
+		T result = action.get();
+		assertEquals(expected, SqlStatementCounter.current() - before, "SQL statements");
+		return result;
+	}
+}
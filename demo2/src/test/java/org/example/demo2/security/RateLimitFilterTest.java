@@ -0,0 +1,142 @@
+package org.example.demo2.security;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.example.demo2.monitoring.SqlStatementAssertions.assertStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"rate-limit.enabled=true",
+		"rate-limit.ip.per-minute=1",
+		"rate-limit.ip.burst=3",
+		"rate-limit.username.per-minute=1",
+		"rate-limit.username.burst=2"
+})
+class RateLimitFilterTest {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private RateLimitFilter rateLimitFilter;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context)
+				.addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+				.build();
+	}
+
+	@Test
+	void usernameIsLimitedAcrossAddresses() throws Throwable {
+		login("10.0.1.1", "limited").andExpect(status().isUnauthorized());
+		login("10.0.1.2", "limited").andExpect(status().isUnauthorized());
+
+		// refused before the user lookup or any password hashing
+		assertStatements(0, () -> login("10.0.1.3", "limited")
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string("Retry-After", "60")));
+	}
+
+	@Test
+	void addressIsLimitedAcrossUsernames() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			login("10.0.2.1", "address" + i).andExpect(status().isUnauthorized());
+		}
+		login("10.0.2.1", "address3").andExpect(status().isTooManyRequests());
+	}
+
+	@Test
+	void bufferedBodyReachesController() throws Exception {
+		mockMvc.perform(post("/students")
+						.with(request -> {
+							request.setRemoteAddr("10.0.3.1");
+							return request;
+						})
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"firstName":"Rate","lastName":"Limit","email":"ratelimit@gmail.com","username":"ratelimit","password":"Passw0rd!","role":"USER"}
+								"""))
+				.andExpect(status().isCreated());
+	}
+
+	@Test
+	void bufferedBodyCanBeReadNonBlocking() throws Exception {
+		String body = """
+				{"username":"nonblocking","password":"Passw0rd!"}
+				""";
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+		request.setServletPath("/auth/login");
+		request.setRemoteAddr("10.0.4.1");
+		request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		AtomicBoolean allRead = new AtomicBoolean();
+
+		rateLimitFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+			ServletInputStream in = req.getInputStream();
+			in.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					byte[] chunk = new byte[16];
+					while (in.isReady() && !in.isFinished()) {
+						int n = in.read(chunk);
+						if (n > 0) {
+							read.write(chunk, 0, n);
+						}
+					}
+				}
+
+				@Override
+				public void onAllDataRead() {
+					allRead.set(true);
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					throw new AssertionError(t);
+				}
+			});
+		});
+
+		assertTrue(allRead.get());
+		assertEquals(body, read.toString(StandardCharsets.UTF_8));
+	}
+
+	private ResultActions login(String address, String username) throws Exception {
+		return mockMvc.perform(post("/auth/login")
+				.with(request -> {
+					request.setRemoteAddr(address);
+					return request;
+				})
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("""
+						{"username":"%s","password":"Passw0rd!"}
+						""".formatted(username)));
+	}
+}
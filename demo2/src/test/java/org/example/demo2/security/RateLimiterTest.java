@@ -0,0 +1,67 @@
+package org.example.demo2.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void allowsBurstThenSustainedRate() {
+		// one permit per second, bursts of 3
+		RateLimiter limiter = new RateLimiter(60, 3, 100);
+		long now = 1_000 * SECOND;
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire("a", now));
+		}
+		assertEquals(SECOND, limiter.tryAcquire("a", now));
+
+		assertEquals(0, limiter.tryAcquire("a", now + SECOND));
+		assertTrue(limiter.tryAcquire("a", now + SECOND) > 0);
+	}
+
+	@Test
+	void keysAreIndependent() {
+		RateLimiter limiter = new RateLimiter(60, 1, 100);
+		long now = 1_000 * SECOND;
+
+		assertEquals(0, limiter.tryAcquire("a", now));
+		assertTrue(limiter.tryAcquire("a", now) > 0);
+		assertEquals(0, limiter.tryAcquire("b", now));
+	}
+
+	@Test
+	void idleKeysAreEvicted() {
+		RateLimiter limiter = new RateLimiter(60, 2, 100);
+		long now = 1_000 * SECOND;
+
+		limiter.tryAcquire("a", now);
+		limiter.tryAcquire("b", now);
+		limiter.tryAcquire("b", now);
+
+		// "a" has refilled after one interval, "b" needs two
+		assertEquals(1, limiter.evictIdle(now + SECOND));
+		assertEquals(1, limiter.size());
+		assertEquals(1, limiter.evictIdle(now + 2 * SECOND));
+		assertEquals(0, limiter.size());
+	}
+
+	@Test
+	void newKeysShareOverflowBucketWhenFull() {
+		RateLimiter limiter = new RateLimiter(60, 1, 2);
+		long now = 1_000 * SECOND;
+
+		limiter.tryAcquire("a", now);
+		limiter.tryAcquire("b", now);
+
+		assertEquals(0, limiter.tryAcquire("c", now));
+		assertTrue(limiter.tryAcquire("d", now) > 0);
+		assertEquals(3, limiter.size());
+	}
+}
@@ -0,0 +1,65 @@
+package org.example.demo2.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenDenylistTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void revokedUntilExpiry() throws Exception {
+		TokenDenylist denylist = open();
+		long now = System.currentTimeMillis();
+
+		denylist.revoke("live", now + 60_000);
+		denylist.revoke("expired", now - 1);
+
+		assertTrue(denylist.isRevoked("live"));
+		assertFalse(denylist.isRevoked("expired"));
+		assertFalse(denylist.isRevoked("never-revoked"));
+		assertFalse(denylist.isRevoked(null));
+		denylist.close();
+	}
+
+	@Test
+	void survivesRestart() throws Exception {
+		TokenDenylist denylist = open();
+		denylist.revoke("a", System.currentTimeMillis() + 60_000);
+		denylist.revoke("b", System.currentTimeMillis() + 60_000);
+		denylist.close();
+
+		TokenDenylist reloaded = open();
+		assertTrue(reloaded.isRevoked("a"));
+		assertTrue(reloaded.isRevoked("b"));
+		assertEquals(2, reloaded.size());
+		reloaded.close();
+	}
+
+	@Test
+	void purgeDropsExpiredEntries() throws Exception {
+		TokenDenylist denylist = open();
+		denylist.revoke("short", System.currentTimeMillis() + 50);
+		denylist.revoke("long", System.currentTimeMillis() + 60_000);
+
+		Thread.sleep(100);
+		denylist.purgeExpired();
+
+		assertEquals(1, denylist.size());
+		assertTrue(denylist.isRevoked("long"));
+		denylist.close();
+	}
+
+	private TokenDenylist open() throws Exception {
+		TokenDenylist denylist = new TokenDenylist(dir.resolve("revoked.log"), 1000);
+		denylist.load();
+		return denylist;
+	}
+}
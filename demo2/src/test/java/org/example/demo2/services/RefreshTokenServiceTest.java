@@ -0,0 +1,79 @@
+package org.example.demo2.services;
+
+import org.example.demo2.exceptions.InvalidTokenException;
+import org.example.demo2.model.AuthTokens;
+import org.example.demo2.model.StudentDTO;
+import org.example.demo2.security.JwtUtil;
+import org.example.demo2.security.StudentPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class RefreshTokenServiceTest {
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private StudentService studentService;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Test
+	void refreshRotatesTheToken() {
+		String first = refreshTokenService.issue(principal("refresh1"));
+
+		AuthTokens tokens = refreshTokenService.refresh(first);
+
+		assertNotEquals(first, tokens.refreshToken());
+		assertEquals("refresh1", jwtUtil.parseClaims(tokens.token()).getSubject());
+		// the next token of the family keeps working
+		refreshTokenService.refresh(tokens.refreshToken());
+	}
+
+	@Test
+	void reusedTokenRevokesTheFamily() {
+		String first = refreshTokenService.issue(principal("refresh2"));
+		AuthTokens rotated = refreshTokenService.refresh(first);
+
+		assertThrows(InvalidTokenException.class, () -> refreshTokenService.refresh(first));
+
+		// the legitimate holder has to log in again as well
+		assertThrows(InvalidTokenException.class, () -> refreshTokenService.refresh(rotated.refreshToken()));
+	}
+
+	@Test
+	void revokedFamilyCannotRefresh() {
+		String first = refreshTokenService.issue(principal("refresh3"));
+
+		refreshTokenService.revoke(first);
+
+		assertThrows(InvalidTokenException.class, () -> refreshTokenService.refresh(first));
+	}
+
+	@Test
+	void unknownTokenIsRejected() {
+		assertThrows(InvalidTokenException.class, () -> refreshTokenService.refresh("not-a-token"));
+	}
+
+	private StudentPrincipal principal(String username) {
+		StudentDTO dto = new StudentDTO();
+		dto.setFirstName("Refresh");
+		dto.setLastName("Token");
+		dto.setUsername(username);
+		dto.setEmail(username + "@gmail.com");
+		dto.setPassword("Passw0rd!");
+		dto.setRole("user");
+		studentService.createStudent(dto);
+		return userDetailsService.loadPrincipal(username);
+	}
+}
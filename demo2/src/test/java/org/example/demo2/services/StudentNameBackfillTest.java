@@ -0,0 +1,87 @@
+package org.example.demo2.services;
+
+import org.example.demo2.model.StudentDTO;
+import org.example.demo2.security.StudentPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:backfill;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class StudentNameBackfillTest {
+
+	private static final LocalDateTime MODIFIED = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+	@Autowired
+	private StudentNameBackfill backfill;
+
+	@Autowired
+	private StudentService studentService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void legacyRowsAreSplitWithoutTouchingModifiedAt() {
+		long id = insertLegacy(800_001L, "legacy1", "Grace Brewster Hopper");
+		authenticateAs(id, "legacy1");
+
+		// not backfilled yet: the projection splits the combined name
+		StudentDTO before = studentService.getStudentById(id);
+		assertEquals("Grace", before.getFirstName());
+		assertEquals("Brewster Hopper", before.getLastName());
+
+		backfill.backfill();
+
+		Map<String, Object> row = jdbcTemplate.queryForMap(
+				"select first_name, last_name, modified_at from student where id=?", id);
+		assertEquals("Grace", row.get("first_name"));
+		assertEquals("Brewster Hopper", row.get("last_name"));
+		assertEquals(Timestamp.valueOf(MODIFIED), row.get("modified_at"));
+	}
+
+	@Test
+	void singleWordNameGetsEmptyLastName() {
+		long id = insertLegacy(800_002L, "legacy2", "Plato");
+
+		backfill.backfill();
+
+		Map<String, Object> row = jdbcTemplate.queryForMap(
+				"select first_name, last_name from student where id=?", id);
+		assertEquals("Plato", row.get("first_name"));
+		assertEquals("", row.get("last_name"));
+	}
+
+	// written the way rows looked before first_name/last_name existed
+	private long insertLegacy(long id, String username, String name) {
+		Timestamp modified = Timestamp.valueOf(MODIFIED);
+		jdbcTemplate.update("insert into student (id, name, email, username, password, role, credential_version, "
+						+ "created_by, modified_by, created_at, modified_at) values (?, ?, ?, ?, ?, 'USER', 0, ?, ?, ?, ?)",
+				id, name, username + "@gmail.com", username, "hash" + id, id, id, modified, modified);
+		return id;
+	}
+
+	private void authenticateAs(long id, String username) {
+		StudentPrincipal principal = new StudentPrincipal(id, username, null, "USER", 0);
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+}
@@ -0,0 +1,76 @@
+package org.example.demo2.services;
+
+import org.example.demo2.model.StudentView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentSearchIndexTest {
+
+	private StudentSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new StudentSearchIndex(null, DataSize.ofMegabytes(16));
+		index.put(view(1L, "Ada", "Lovelace", "ada", "ada.lovelace@gmail.com"));
+		index.put(view(2L, "Adam", "Smith", "asmith", "adam.smith@gmail.com"));
+		index.put(view(3L, "Grace", "Hopper", "ghopper", "grace@gmail.com"));
+	}
+
+	@Test
+	void exactUsernameRanksFirst() {
+		assertEquals(List.of(1L, 2L), ids(index.search("ada", 10)));
+	}
+
+	@Test
+	void substringMatchesInsideWords() {
+		assertEquals(List.of(3L), ids(index.search("oppe", 10)));
+		assertEquals(List.of(1L), ids(index.search("LOVEL", 10)));
+	}
+
+	@Test
+	void shortQueryMatchesWordPrefixesOnly() {
+		assertEquals(List.of(3L), ids(index.search("gr", 10)));
+		// "mi" only occurs inside "smith", not at a word start
+		assertTrue(index.search("mi", 10).isEmpty());
+	}
+
+	@Test
+	void limitKeepsTheBestHits() {
+		assertEquals(List.of(1L), ids(index.search("ada", 1)));
+	}
+
+	@Test
+	void updatesAndRemovalsAreVisible() {
+		index.put(view(3L, "Grace", "Brewster", "gbrewster", "grace@gmail.com"));
+		assertTrue(index.search("hopper", 10).isEmpty());
+		assertEquals(List.of(3L), ids(index.search("brew", 10)));
+
+		index.remove(1L);
+		assertEquals(List.of(2L), ids(index.search("ada", 10)));
+	}
+
+	@Test
+	void repeatedUpdatesStayWithinBudget() {
+		// a few entries fit easily, but not the postings of every replaced version
+		StudentSearchIndex small = new StudentSearchIndex(null, DataSize.ofKilobytes(64));
+		for (int i = 0; i < 5_000; i++) {
+			small.put(view(1L, "Ada", "Lovelace", "ada", "ada" + (i % 10) + "@gmail.com"));
+		}
+
+		assertEquals(List.of(1L), ids(small.search("lovelace", 10)));
+	}
+
+	private static List<Long> ids(List<StudentSearchIndex.Hit> hits) {
+		return hits.stream().map(hit -> hit.student().id()).toList();
+	}
+
+	private static StudentView view(Long id, String first, String last, String username, String email) {
+		return new StudentView(id, first, last, email, username, "USER", id, id);
+	}
+}
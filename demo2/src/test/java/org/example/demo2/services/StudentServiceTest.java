@@ -0,0 +1,174 @@
+package org.example.demo2.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.demo2.exceptions.DuplicateResourceException;
+import org.example.demo2.model.StudentBatchResult;
+import org.example.demo2.model.StudentDTO;
+import org.example.demo2.repositories.StudentRepository;
+import org.example.demo2.security.StudentPrincipal;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class StudentServiceTest {
+
+	@Autowired
+	private StudentService studentService;
+
+	@Autowired
+	private StudentIdAllocator studentIdAllocator;
+
+	@Autowired
+	private StudentRepository studentRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// make sure an id block is already reserved, its cost is amortised over many creates
+		studentIdAllocator.nextId();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void createStudentIssuesSingleInsert() {
+
+		StudentDTO created = studentService.createStudent(student("alice", "alice@gmail.com"));
+
+		assertEquals(created.getId(), created.getCreatedBy());
+		assertEquals(created.getId(), created.getModifiedBy());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(1, statistics.getEntityInsertCount());
+		assertEquals(0, statistics.getEntityUpdateCount());
+	}
+
+	@Test
+	void duplicateUsernameIsReported() {
+
+		studentService.createStudent(student("bob", "bob@gmail.com"));
+
+		DuplicateResourceException ex = assertThrows(DuplicateResourceException.class,
+				() -> studentService.createStudent(student("bob", "bobby@gmail.com")));
+
+		assertEquals("Username already exists", ex.getMessage());
+	}
+
+	@Test
+	void duplicateEmailIsReported() {
+
+		studentService.createStudent(student("carol", "carol@gmail.com"));
+
+		DuplicateResourceException ex = assertThrows(DuplicateResourceException.class,
+				() -> studentService.createStudent(student("caroline", "carol@gmail.com")));
+
+		assertEquals("Email already exists", ex.getMessage());
+	}
+
+	@Test
+	void duplicateUnderGeneratedIndexNameIsReported() {
+
+		studentService.createStudent(student("grace", "grace@gmail.com"));
+
+		// a schema created before the constraints had names
+		jdbcTemplate.execute("alter table student drop constraint uk_student_email");
+		jdbcTemplate.execute("alter table student add constraint UK_legacy_email unique (email)");
+		try {
+			DuplicateResourceException ex = assertThrows(DuplicateResourceException.class,
+					() -> studentService.createStudent(student("gracie", "grace@gmail.com")));
+
+			assertEquals("Email already exists", ex.getMessage());
+		} finally {
+			jdbcTemplate.execute("alter table student drop constraint UK_legacy_email");
+			jdbcTemplate.execute("alter table student add constraint uk_student_email unique (email)");
+		}
+	}
+
+	@Test
+	void updateKeepsCredentialsUnlessPasswordChanges() {
+
+		StudentDTO created = studentService.createStudent(student("dave", "dave@gmail.com"));
+		authenticateAs(created.getId(), "dave");
+
+		StudentDTO update = student("dave", "dave@gmail.com");
+		update.setFirstName("David");
+		update.setPassword(null);
+		studentService.updateStudent(created.getId(), update);
+		assertEquals(0L, credentialVersion(created.getId()));
+
+		update.setPassword("Passw0rd!");
+		studentService.updateStudent(created.getId(), update);
+		assertEquals(0L, credentialVersion(created.getId()));
+
+		update.setPassword("N3wPassw0rd!");
+		studentService.updateStudent(created.getId(), update);
+		assertEquals(1L, credentialVersion(created.getId()));
+	}
+
+	@Test
+	void batchDuplicatesIgnoreCase() {
+
+		authenticateAs(1L, "admin", "ADMIN");
+
+		StudentBatchResult result = studentService.createStudents(List.of(
+				student("Erin", "erin@gmail.com"),
+				student("erin", "erin2@gmail.com"),
+				student("frank", "Erin@gmail.com")));
+
+		assertEquals(1, result.getCreated());
+		assertTrue(result.getResults().get(0).isCreated());
+		assertEquals(Map.of("username", "Username repeated in batch"), result.getResults().get(1).getErrors());
+		assertEquals(Map.of("email", "Email repeated in batch"), result.getResults().get(2).getErrors());
+	}
+
+	private long credentialVersion(Long id) {
+		return studentRepository.findById(id).orElseThrow().getCredentialVersion();
+	}
+
+	private void authenticateAs(Long id, String username) {
+		authenticateAs(id, username, "USER");
+	}
+
+	private void authenticateAs(Long id, String username, String role) {
+		StudentPrincipal principal = new StudentPrincipal(id, username, null, role, 0);
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+
+	private StudentDTO student(String username, String email) {
+		StudentDTO dto = new StudentDTO();
+		dto.setFirstName("Test");
+		dto.setLastName("Student");
+		dto.setUsername(username);
+		dto.setEmail(email);
+		dto.setPassword("Passw0rd!");
+		dto.setRole("user");
+		return dto;
+	}
+}